@@ -0,0 +1,85 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dataStructures.BreadthFirstLevels;
+import dataStructures.DirectedGraph;
+import dataStructures.NoOpEventSink;
+
+/**
+ * Compares the sequential breadth-first search of a DirectedGraph with the parallel level-by-level one.
+ *
+ * <p>The graph is random, with {@code degree} edges leaving each vertex on average, and is built and
+ * compacted once per trial. {@code sequential} is the plain queue-based search; {@code levels} is the
+ * level-synchronous search on a fork/join pool of {@code threads} threads, where 1 runs it on the calling
+ * thread. Comparing {@code levels} across thread counts shows how it scales.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GraphSearchBenchmark {
+    private static final long SEED = 42;
+
+    @Param({"100000", "1000000"})
+    int vertices;
+
+    @Param({"4", "16"})
+    int degree;
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    private DirectedGraph graph;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void buildGraph() {
+        graph = new DirectedGraph();
+        graph.setEventSink(NoOpEventSink.INSTANCE);
+        for (int vertex = 0; vertex < vertices; vertex++) {
+            graph.addNode(vertex);
+        }
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long edge = 0, edges = (long) vertices * degree; edge < edges; edge++) {
+            graph.addEdge(random.nextInt(vertices), random.nextInt(vertices));
+        }
+        graph.compact();
+        pool = threads == 1 ? null : new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownPool() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int[] sequential() {
+        return graph.breadthFirst(0);
+    }
+
+    @Benchmark
+    public BreadthFirstLevels levels() {
+        return graph.breadthFirstLevels(0, pool);
+    }
+}
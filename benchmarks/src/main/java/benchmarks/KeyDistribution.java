@@ -0,0 +1,116 @@
+package benchmarks;
+
+import java.util.Random;
+
+/**
+ * The orders in which keys are fed to a data structure under benchmark.
+ *
+ * <p>The keys that build a structure are always even, and the probe keys added during a benchmark are
+ * always odd, so a probe is never already present. Each distribution places its probes where its own keys
+ * would continue: sorted probes land after the largest key, reverse probes before the smallest one.</p>
+ */
+public enum KeyDistribution {
+    /**
+     * Uniformly random keys.
+     */
+    RANDOM {
+        @Override
+        int key(Random random, int size, int index) {
+            return random.nextInt() & ~1;
+        }
+
+        @Override
+        int probe(Random random, int size, int index) {
+            return random.nextInt() | 1;
+        }
+    },
+    /**
+     * Keys in ascending order, the worst case for an unbalanced binary search tree.
+     */
+    SORTED {
+        @Override
+        int key(Random random, int size, int index) {
+            return 2 * index;
+        }
+
+        @Override
+        int probe(Random random, int size, int index) {
+            return 2 * (size + index) + 1;
+        }
+    },
+    /**
+     * Keys in descending order.
+     */
+    REVERSE {
+        @Override
+        int key(Random random, int size, int index) {
+            return 2 * (size - 1 - index);
+        }
+
+        @Override
+        int probe(Random random, int size, int index) {
+            return -2 * index - 1;
+        }
+    },
+    /**
+     * Runs of consecutive keys starting at random points, as produced by bursts of related records.
+     */
+    CLUSTERED {
+        @Override
+        int key(Random random, int size, int index) {
+            return clusterBase(size, index) + 2 * (index % CLUSTER_LENGTH);
+        }
+
+        @Override
+        int probe(Random random, int size, int index) {
+            return clusterBase(size, index) + 2 * (index % CLUSTER_LENGTH) + 1;
+        }
+    };
+
+    private static final int CLUSTER_LENGTH = 64;
+
+    abstract int key(Random random, int size, int index);
+
+    abstract int probe(Random random, int size, int index);
+
+    /**
+     * Generates the keys that build a structure of the given size.
+     *
+     * @param size The number of keys.
+     * @param seed The random seed, so runs are repeatable.
+     * @return The keys in insertion order.
+     */
+    public int[] keys(int size, long seed) {
+        Random random = new Random(seed);
+        int[] keys = new int[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = key(random, size, i);
+        }
+        return keys;
+    }
+
+    /**
+     * Generates keys that are not among the keys of a structure of the given size.
+     *
+     * @param size The number of keys in the structure.
+     * @param count The number of probes.
+     * @param seed The random seed, so runs are repeatable.
+     * @return The probe keys.
+     */
+    public int[] probes(int size, int count, long seed) {
+        Random random = new Random(seed);
+        int[] probes = new int[count];
+        for (int i = 0; i < count; i++) {
+            probes[i] = probe(random, size, i);
+        }
+        return probes;
+    }
+
+    /**
+     * Spreads clusters over the key space by hashing the cluster number; the result is even.
+     */
+    private static int clusterBase(int size, int index) {
+        int cluster = index / CLUSTER_LENGTH;
+        return (cluster * 0x9E3779B1) & ~(2 * CLUSTER_LENGTH - 1) & Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dataStructures.DataStructure;
+
+/**
+ * Measures addNode and removeNode.
+ *
+ * <p>Every iteration starts from a freshly built structure of the benchmarked size and performs a batch
+ * of {@value #BATCH} operations, so the size barely drifts while it is measured. Scores are the time for
+ * the whole batch; divide by {@value #BATCH} for the cost of one operation.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, batchSize = MutationBenchmark.BATCH)
+@Measurement(iterations = 5, batchSize = MutationBenchmark.BATCH)
+public class MutationBenchmark {
+    static final int BATCH = 1000;
+    private static final long SEED = 42;
+
+    @Param({"LinkedList", "IndexedLinkedList", "Stack", "Queue", "BinaryTree", "ArenaTree", "AVLTree", "Array",
+            "SortedArray"})
+    String structure;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Param({"RANDOM", "SORTED", "REVERSE", "CLUSTERED"})
+    KeyDistribution distribution;
+
+    private int[] keys;
+    private int[] probes;
+    private DataStructure dataStructure;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void generateKeys() {
+        Structures.checkFeasible(structure, distribution, size);
+        keys = distribution.keys(size, SEED);
+        probes = distribution.probes(size, BATCH, SEED + 1);
+    }
+
+    @Setup(Level.Iteration)
+    public void buildStructure() {
+        dataStructure = Structures.build(structure, keys);
+        cursor = 0;
+    }
+
+    /**
+     * Adds a key that is not yet in the structure.
+     */
+    @Benchmark
+    public void addNode() {
+        dataStructure.addNode(probes[cursor++ % BATCH]);
+    }
+
+    /**
+     * Removes keys in the order they were added; a Stack pops its top element instead.
+     */
+    @Benchmark
+    public void removeNode() {
+        dataStructure.removeNode(keys[cursor++ % size]);
+    }
+}
@@ -0,0 +1,85 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dataStructures.DataStructure;
+
+/**
+ * Measures the operations that read a whole structure: traverse, getVisualRepresentation and summing the
+ * values through a sequential and a parallel stream.
+ *
+ * <p>The structure is built once per trial. traverse prints to the console, which is redirected to a
+ * stream that discards everything while the benchmark runs, so the score covers formatting but not the
+ * terminal.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReadBenchmark {
+    private static final long SEED = 42;
+
+    @Param({"LinkedList", "IndexedLinkedList", "Stack", "Queue", "BinaryTree", "ArenaTree", "AVLTree", "Array",
+            "SortedArray"})
+    String structure;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Param({"RANDOM", "SORTED", "REVERSE", "CLUSTERED"})
+    KeyDistribution distribution;
+
+    private DataStructure dataStructure;
+    private PrintStream console;
+
+    @Setup(Level.Trial)
+    public void buildStructure() {
+        Structures.checkFeasible(structure, distribution, size);
+        dataStructure = Structures.build(structure, distribution.keys(size, SEED));
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreConsole() {
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public void traverse() {
+        dataStructure.traverse();
+    }
+
+    @Benchmark
+    public String getVisualRepresentation() {
+        return dataStructure.getVisualRepresentation();
+    }
+
+    @Benchmark
+    public long sumStream() {
+        return dataStructure.stream().asLongStream().sum();
+    }
+
+    @Benchmark
+    public long sumParallelStream() {
+        return dataStructure.stream().parallel().asLongStream().sum();
+    }
+}
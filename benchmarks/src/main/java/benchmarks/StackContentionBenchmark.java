@@ -0,0 +1,70 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dataStructures.ConcurrentStack;
+import dataStructures.NoOpEventSink;
+import dataStructures.Stack;
+
+/**
+ * Measures a stack shared by several threads that each push an element and pop one.
+ *
+ * <p>{@code locked} guards the chunked {@link Stack} with a monitor, the way it has to be shared;
+ * {@code lockFree} uses {@link ConcurrentStack} directly. Every thread pushes before it pops, so the stack
+ * is never empty when a pop runs. The stack starts with {@code depth} elements. Run with {@code -t 1} to see
+ * the uncontended cost and with larger thread counts to see how each stack copes with contention.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StackContentionBenchmark {
+    @Param({"16", "100000"})
+    int depth;
+
+    private Stack stack;
+    private ConcurrentStack concurrentStack;
+
+    @Setup(Level.Trial)
+    public void buildStacks() {
+        stack = new Stack();
+        stack.setEventSink(NoOpEventSink.INSTANCE);
+        concurrentStack = new ConcurrentStack();
+        concurrentStack.setEventSink(NoOpEventSink.INSTANCE);
+        for (int i = 0; i < depth; i++) {
+            stack.push(i);
+            concurrentStack.push(i);
+        }
+    }
+
+    @Benchmark
+    public int locked() {
+        synchronized (stack) {
+            stack.push(1);
+            return stack.pop();
+        }
+    }
+
+    @Benchmark
+    public int lockFree() {
+        concurrentStack.push(1);
+        return concurrentStack.pop();
+    }
+}
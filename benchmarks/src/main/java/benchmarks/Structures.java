@@ -0,0 +1,114 @@
+package benchmarks;
+
+import dataStructures.AVLTree;
+import dataStructures.ArenaTree;
+import dataStructures.Array;
+import dataStructures.BinaryTree;
+import dataStructures.DataStructure;
+import dataStructures.LinkedList;
+import dataStructures.NoOpEventSink;
+import dataStructures.Queue;
+import dataStructures.Stack;
+
+/**
+ * Creates and fills the data structures under benchmark.
+ */
+final class Structures {
+    /**
+     * Above this size an unbalanced BinaryTree or ArenaTree is not built from sorted keys: it degenerates into
+     * a list, so building it takes quadratic time and the recursion of BinaryTree overflows the stack.
+     */
+    private static final int DEGENERATE_TREE_LIMIT = 5_000;
+
+    private Structures() {
+    }
+
+    /**
+     * Creates an empty data structure that reports nothing.
+     *
+     * @param name The simple class name of the data structure, "SortedArray" for an Array in sorted mode or
+     *             "IndexedLinkedList" for a LinkedList with a hash index.
+     * @return The new data structure.
+     */
+    static DataStructure create(String name) {
+        DataStructure dataStructure;
+        switch (name) {
+            case "LinkedList":
+                dataStructure = new LinkedList();
+                break;
+            case "IndexedLinkedList":
+                dataStructure = new LinkedList(true);
+                break;
+            case "Stack":
+                dataStructure = new Stack();
+                break;
+            case "Queue":
+                dataStructure = new Queue();
+                break;
+            case "BinaryTree":
+                dataStructure = new BinaryTree();
+                break;
+            case "AVLTree":
+                dataStructure = new AVLTree();
+                break;
+            case "ArenaTree":
+                dataStructure = new ArenaTree();
+                break;
+            case "Array":
+                dataStructure = new Array();
+                break;
+            case "SortedArray":
+                dataStructure = new Array(true);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown data structure: " + name);
+        }
+        dataStructure.setEventSink(NoOpEventSink.INSTANCE);
+        return dataStructure;
+    }
+
+    /**
+     * Creates a data structure and adds the given keys to it in order.
+     *
+     * <p>Arrays and queues take the keys in one {@link Array#addAll(int[])} or {@link Queue#offerAll(int[])}
+     * call, so a sorted array is not built by shifting its elements once per key.</p>
+     *
+     * @param name The simple class name of the data structure, "SortedArray" for an Array in sorted mode or
+     *             "IndexedLinkedList" for a LinkedList with a hash index.
+     * @param keys The keys to add.
+     * @return The filled data structure.
+     */
+    static DataStructure build(String name, int[] keys) {
+        DataStructure dataStructure = create(name);
+        if (dataStructure instanceof Array) {
+            ((Array) dataStructure).addAll(keys);
+            return dataStructure;
+        }
+        if (dataStructure instanceof Queue) {
+            ((Queue) dataStructure).offerAll(keys);
+            return dataStructure;
+        }
+        for (int key : keys) {
+            dataStructure.addNode(key);
+        }
+        return dataStructure;
+    }
+
+    /**
+     * Rejects parameter combinations whose setup alone would take hours or crash.
+     *
+     * <p>JMH reports the exception for that combination and carries on with the others.</p>
+     */
+    static void checkFeasible(String name, KeyDistribution distribution, int size) {
+        if (name.equals("BinaryTree") && size > DEGENERATE_TREE_LIMIT
+                && (distribution == KeyDistribution.SORTED || distribution == KeyDistribution.REVERSE)) {
+            throw new IllegalStateException("Skipping BinaryTree with " + size + " " + distribution
+                    + " keys: the unbalanced tree degenerates into a list and its recursion overflows the stack.");
+        }
+        if (name.equals("ArenaTree") && size > DEGENERATE_TREE_LIMIT
+                && (distribution == KeyDistribution.SORTED || distribution == KeyDistribution.REVERSE)) {
+            throw new IllegalStateException("Skipping ArenaTree with " + size + " " + distribution
+                    + " keys: the unbalanced tree degenerates into a list, so building it takes quadratic time.");
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package dataStructures;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.ConcurrentModificationException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * The AVLTree class represents a self-balancing binary search tree.
+ *
+ * <p>After every insertion and removal the heights of the two subtrees of any node differ by at most one,
+ * so the depth of the tree stays O(log n) even when values are added in sorted order. Every operation is
+ * iterative and walks an explicit path array instead of the call stack.</p>
+ */
+public class AVLTree extends DataStructure {
+    /**
+     * Upper bound on the height of an AVL tree holding up to 2^31 nodes (the actual bound is 45).
+     */
+    private static final int MAX_HEIGHT = 64;
+
+    private Node root;
+    private final Node[] path = new Node[MAX_HEIGHT];
+
+    /**
+     * The Node class represents a node in the AVL tree.
+     */
+    private static class Node {
+        int value;
+        int height;
+        int size;
+        Node left;
+        Node right;
+
+        /**
+         * Constructs a new leaf node with the specified value.
+         *
+         * @param value The value of the node.
+         */
+        Node(int value) {
+            this.value = value;
+            this.height = 1;
+            this.size = 1;
+            this.left = null;
+            this.right = null;
+        }
+    }
+
+    private static final TreeSpliterator.Shape<Node> SHAPE = new TreeSpliterator.Shape<Node>() {
+        @Override
+        public Node left(Node node) {
+            return node.left;
+        }
+
+        @Override
+        public Node right(Node node) {
+            return node.right;
+        }
+
+        @Override
+        public int value(Node node) {
+            return node.value;
+        }
+
+        @Override
+        public int size(Node node) {
+            return node.size;
+        }
+    };
+
+    @Override
+    public String getName() {
+        return "AVL tree";
+    }
+
+    /**
+     * Adds a new node with the specified value to the AVL tree.
+     *
+     * <p>The insertion point is found by walking down from the root while recording the path.
+     * The path is then walked back up, updating heights and rotating any node that became unbalanced.
+     * Duplicate values are ignored and reported as {@link Outcome#DUPLICATE}.</p>
+     *
+     * @param value The value to be added to the AVL tree.
+     */
+    @Override
+    public void addNode(int value) {
+        if (root == null) {
+            root = new Node(value);
+            markModified();
+            emit(Operation.ADD, value, Outcome.SUCCESS);
+            return;
+        }
+
+        int depth = 0;
+        Node current = root;
+        while (current != null) {
+            path[depth++] = current;
+            if (value < current.value) {
+                current = current.left;
+            } else if (value > current.value) {
+                current = current.right;
+            } else {
+                emit(Operation.ADD, value, Outcome.DUPLICATE);
+                return;
+            }
+        }
+
+        Node parent = path[depth - 1];
+        if (value < parent.value) {
+            parent.left = new Node(value);
+        } else {
+            parent.right = new Node(value);
+        }
+
+        rebalancePath(depth);
+        markModified();
+        emit(Operation.ADD, value, Outcome.SUCCESS);
+    }
+
+    /**
+     * Removes a node with the specified value from the AVL tree.
+     *
+     * <p>A node with two children takes the value of its in-order successor, and the successor is
+     * unlinked instead. The recorded path is then rebalanced from the unlinked node up to the root.</p>
+     *
+     * @param value The value to be removed from the AVL tree.
+     */
+    @Override
+    public void removeNode(int value) {
+        int depth = 0;
+        Node current = root;
+        while (current != null && current.value != value) {
+            path[depth++] = current;
+            current = value < current.value ? current.left : current.right;
+        }
+
+        if (current == null) {
+            emit(Operation.REMOVE, value, Outcome.NOT_FOUND);
+            return;
+        }
+
+        if (current.left != null && current.right != null) {
+            // Node with two children: replace its value with the in-order successor and unlink that instead
+            path[depth++] = current;
+            Node successor = current.right;
+            while (successor.left != null) {
+                path[depth++] = successor;
+                successor = successor.left;
+            }
+            current.value = successor.value;
+            current = successor;
+        }
+
+        Node child = current.left != null ? current.left : current.right;
+        if (depth == 0) {
+            root = child;
+        } else {
+            Node parent = path[depth - 1];
+            if (parent.left == current) {
+                parent.left = child;
+            } else {
+                parent.right = child;
+            }
+        }
+
+        rebalancePath(depth);
+        markModified();
+        emit(Operation.REMOVE, value, Outcome.SUCCESS);
+    }
+
+    /**
+     * Restores the AVL property along the first {@code depth} entries of the recorded path,
+     * starting at the deepest node and finishing at the root.
+     *
+     * @param depth The number of valid entries in the path array.
+     */
+    private void rebalancePath(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            Node node = path[i];
+            Node balanced = rebalance(node);
+            if (i == 0) {
+                root = balanced;
+            } else if (balanced != node) {
+                Node parent = path[i - 1];
+                if (parent.left == node) {
+                    parent.left = balanced;
+                } else {
+                    parent.right = balanced;
+                }
+            }
+            path[i] = null;
+        }
+    }
+
+    private Node rebalance(Node node) {
+        update(node);
+        int balance = balanceFactor(node);
+
+        if (balance > 1) {
+            if (balanceFactor(node.left) < 0) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (balanceFactor(node.right) > 0) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int balanceFactor(Node node) {
+        return height(node.left) - height(node.right);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    /**
+     * Writes the values in ascending order; any AVL tree holding them is an equally good restoration.
+     */
+    @Override
+    void writeSnapshot(Snapshot.Target target) throws IOException {
+        int size = size(root);
+        IntBuffer out = target.open(size, size);
+        Node[] stack = new Node[height(root)];
+        int top = 0;
+        Node current = root;
+        while (current != null || top > 0) {
+            while (current != null) {
+                stack[top++] = current;
+                current = current.left;
+            }
+            current = stack[--top];
+            out.put(current.value);
+            current = current.right;
+        }
+    }
+
+    /**
+     * Rebuilds the tree from its values in ascending order in linear time, taking the middle value of
+     * each range as the root of its subtree so that the result is perfectly balanced.
+     */
+    @Override
+    void readSnapshot(IntBuffer in, int size) {
+        int[] values = new int[size];
+        in.get(values);
+        for (int i = 1; i < size; i++) {
+            if (values[i] <= values[i - 1]) {
+                throw new IllegalArgumentException("the values are not in strictly ascending order.");
+            }
+        }
+        root = buildBalanced(values, 0, size);
+        markModified();
+    }
+
+    /**
+     * Adds many values at once and rebuilds the tree perfectly balanced.
+     *
+     * <p>The new values are sorted and merged with the values already in the tree, and the tree is built from
+     * the merged values in O(n) instead of rebalancing after each insertion.</p>
+     *
+     * @param values The values to add, which are not modified.
+     */
+    @Override
+    public void bulkLoad(int[] values) {
+        if (values.length == 0) {
+            return;
+        }
+        int[] union = sortedUnion(iterator(), size(), values);
+        root = buildBalanced(union, 0, union.length);
+        markModified();
+    }
+
+    private static Node buildBalanced(int[] values, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node node = new Node(values[middle]);
+        node.left = buildBalanced(values, from, middle);
+        node.right = buildBalanced(values, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    /**
+     * Gets the number of values in the AVL tree, which the root records.
+     *
+     * @return The number of values.
+     */
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Gets the height of the AVL tree, which the root records.
+     *
+     * @return The number of nodes on the longest path from the root to a leaf, or 0 if the tree is empty.
+     */
+    public int height() {
+        return height(root);
+    }
+
+    /**
+     * Gets a lazy iterator over the values in ascending order.
+     *
+     * @return An iterator that fails if the tree is changed while it is in use.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        PrimitiveIterator.OfInt values = Spliterators.iterator(spliterator());
+        return new PrimitiveIterator.OfInt() {
+            private final long expectedModificationCount = getModificationCount();
+
+            @Override
+            public boolean hasNext() {
+                return values.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                if (getModificationCount() != expectedModificationCount) {
+                    throw new ConcurrentModificationException();
+                }
+                return values.nextInt();
+            }
+        };
+    }
+
+    /**
+     * Gets a spliterator over the values in ascending order.
+     *
+     * <p>It splits the tree at its subtrees without copying any values, and every part knows its exact size
+     * from the sizes the nodes record. The tree must not be changed while the spliterator is in use.</p>
+     *
+     * @return A spliterator over the values.
+     */
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return new TreeSpliterator<>(SHAPE, root, size(root), 0);
+    }
+
+    /**
+     * Performs an in-order traversal of the AVL tree.
+     *
+     * <p>This method visits the nodes in ascending order using an explicit stack bounded by the
+     * height of the tree, printing the values of the nodes as they are visited.</p>
+     */
+    @Override
+    public void traverse() {
+        System.out.print("AVL Tree In-order Traversal: ");
+        Node[] stack = new Node[height(root)];
+        int top = 0;
+        Node current = root;
+        while (current != null || top > 0) {
+            while (current != null) {
+                stack[top++] = current;
+                current = current.left;
+            }
+            current = stack[--top];
+            System.out.print(current.value + " ");
+            current = current.right;
+        }
+        System.out.println();
+    }
+
+    /**
+     * Writes the visual representation of the AVL tree.
+     *
+     * <p>The representation uses the same indented pre-order layout as {@link BinaryTree}, written by the
+     * renderer all trees share. Only the rows inside the viewport are written, and a node whose children
+     * lie below the viewport depth is shown with the number of nodes hidden beneath it, which every node
+     * tracks; the same counts let whole subtrees above the viewport be skipped.</p>
+     *
+     * @param out The destination the representation is streamed into.
+     * @param viewport The rows and levels of the tree to render.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    @Override
+    public void writeVisualRepresentation(Appendable out, Viewport viewport) throws IOException {
+        TreeRenderer.write(out, SHAPE, root, viewport);
+    }
+}
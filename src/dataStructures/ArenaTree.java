@@ -0,0 +1,490 @@
+package dataStructures;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * A binary search tree whose nodes live off the Java heap, for trees of tens of millions of values.
+ *
+ * <p>It behaves exactly like {@link BinaryTree}: values are kept unbalanced in insertion order, duplicates are
+ * ignored and a removed node with two children takes the value of its in-order successor. The nodes, however,
+ * are not objects. Each is four packed ints (value, left child, right child and the size of its subtree) in an
+ * arena of direct buffers, addressed by its index, with index 0 standing for no node. A node therefore takes
+ * {@value #NODE_BYTES} bytes instead of the 24 or more of a heap object and its references, and the garbage
+ * collector never has to scan or move the tree. The subtree sizes let the visual representation skip whole
+ * subtrees, so paging deep into a large tree does not walk every earlier row.</p>
+ *
+ * <p>The arena grows a page of {@code 65536} nodes at a time, so it never copies existing nodes. The slots of
+ * removed nodes are kept on a free list, threaded through their left-child field, and reused before the arena
+ * grows. Every operation walks the tree with a loop or an explicit stack of indexes, so degenerate trees of
+ * any depth are handled without recursion.</p>
+ */
+public class ArenaTree extends DataStructure {
+    /**
+     * The number of bytes each node takes in the arena.
+     */
+    public static final int NODE_BYTES = 4 * Integer.BYTES;
+
+    private static final int NIL = 0;
+    private static final int VALUE = 0;
+    private static final int LEFT = 1;
+    private static final int RIGHT = 2;
+    private static final int SIZE = 3;
+    private static final int NODE_INTS = 4;
+    private static final int PAGE_SHIFT = 16;
+    private static final int PAGE_NODES = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_NODES - 1;
+
+    private IntBuffer[] pages = new IntBuffer[4];
+    private int pageCount;
+    private int nextNode = 1;
+    private int freeHead = NIL;
+    private int freeCount;
+    private int root = NIL;
+    private int size;
+
+    private final TreeRenderer.IndexShape shape = new TreeRenderer.IndexShape() {
+        @Override
+        public int left(int node) {
+            return get(node, LEFT);
+        }
+
+        @Override
+        public int right(int node) {
+            return get(node, RIGHT);
+        }
+
+        @Override
+        public int value(int node) {
+            return get(node, VALUE);
+        }
+
+        @Override
+        public int size(int node) {
+            return get(node, SIZE);
+        }
+    };
+
+    @Override
+    public String getName() {
+        return "arena tree";
+    }
+
+    /**
+     * Adds a value to the tree.
+     *
+     * <p>Adding a value that is already in the tree leaves it unchanged and is reported as
+     * {@link Outcome#DUPLICATE}.</p>
+     *
+     * @param value The value to be added.
+     */
+    @Override
+    public void addNode(int value) {
+        if (root == NIL) {
+            root = allocate(value);
+        } else {
+            int current = root;
+            while (true) {
+                int currentValue = get(current, VALUE);
+                if (value == currentValue) {
+                    addToPathSizes(value, -1);
+                    emit(Operation.ADD, value, Outcome.DUPLICATE);
+                    return;
+                }
+                // Count the new node on the way down, and take it back if the value turns out to be present
+                set(current, SIZE, get(current, SIZE) + 1);
+                int side = value < currentValue ? LEFT : RIGHT;
+                int child = get(current, side);
+                if (child == NIL) {
+                    set(current, side, allocate(value));
+                    break;
+                }
+                current = child;
+            }
+        }
+        size++;
+        markModified();
+        emit(Operation.ADD, value, Outcome.SUCCESS);
+    }
+
+    /**
+     * Removes a value from the tree.
+     *
+     * <p>Removing a value that is not in the tree is reported as {@link Outcome#NOT_FOUND}.</p>
+     *
+     * @param value The value to be removed.
+     */
+    @Override
+    public void removeNode(int value) {
+        int parent = NIL;
+        int side = LEFT;
+        int current = root;
+        while (current != NIL && get(current, VALUE) != value) {
+            set(current, SIZE, get(current, SIZE) - 1);
+            parent = current;
+            side = value < get(current, VALUE) ? LEFT : RIGHT;
+            current = get(current, side);
+        }
+        if (current == NIL) {
+            addToPathSizes(value, 1);
+            emit(Operation.REMOVE, value, Outcome.NOT_FOUND);
+            return;
+        }
+
+        int left = get(current, LEFT);
+        int right = get(current, RIGHT);
+        if (left != NIL && right != NIL) {
+            // Take the value of the in-order successor, the smallest value on the right, and unlink that instead
+            set(current, SIZE, get(current, SIZE) - 1);
+            int successorParent = current;
+            int successor = right;
+            while (get(successor, LEFT) != NIL) {
+                set(successor, SIZE, get(successor, SIZE) - 1);
+                successorParent = successor;
+                successor = get(successor, LEFT);
+            }
+            set(current, VALUE, get(successor, VALUE));
+            set(successorParent, successorParent == current ? RIGHT : LEFT, get(successor, RIGHT));
+            free(successor);
+        } else {
+            int child = left != NIL ? left : right;
+            if (parent == NIL) {
+                root = child;
+            } else {
+                set(parent, side, child);
+            }
+            free(current);
+        }
+        size--;
+        markModified();
+        emit(Operation.REMOVE, value, Outcome.SUCCESS);
+    }
+
+    /**
+     * Adds a delta to the subtree size of every node on the search path for a value, stopping above the node
+     * holding it, to undo the counts adjusted by a search that found nothing to change.
+     */
+    private void addToPathSizes(int value, int delta) {
+        int current = root;
+        while (current != NIL) {
+            int currentValue = get(current, VALUE);
+            if (value == currentValue) {
+                return;
+            }
+            set(current, SIZE, get(current, SIZE) + delta);
+            current = get(current, value < currentValue ? LEFT : RIGHT);
+        }
+    }
+
+    /**
+     * Adds many values at once and rebuilds the tree perfectly balanced.
+     *
+     * <p>The new values are sorted and merged with the values already in the tree. The arena is then reset, so
+     * the free list is dropped and its pages are reused from the start, and the merged values are laid out from
+     * the middle outwards in O(n). Building recurses only as deep as the balanced tree, about log2 n levels.</p>
+     *
+     * @param values The values to add, which are not modified.
+     */
+    @Override
+    public void bulkLoad(int[] values) {
+        if (values.length == 0) {
+            return;
+        }
+        int[] union = sortedUnion(iterator(), size, values);
+        nextNode = 1;
+        freeHead = NIL;
+        freeCount = 0;
+        root = buildBalanced(union, 0, union.length);
+        size = union.length;
+        markModified();
+    }
+
+    private int buildBalanced(int[] values, int from, int to) {
+        if (from == to) {
+            return NIL;
+        }
+        int middle = (from + to) >>> 1;
+        int node = allocate(values[middle]);
+        set(node, LEFT, buildBalanced(values, from, middle));
+        set(node, RIGHT, buildBalanced(values, middle + 1, to));
+        set(node, SIZE, to - from);
+        return node;
+    }
+
+    /**
+     * Checks whether a value is in the tree.
+     *
+     * @param value The value to look for.
+     * @return True if the tree contains the value.
+     */
+    public boolean contains(int value) {
+        int current = root;
+        while (current != NIL) {
+            int currentValue = get(current, VALUE);
+            if (value == currentValue) {
+                return true;
+            }
+            current = get(current, value < currentValue ? LEFT : RIGHT);
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of values in the tree.
+     *
+     * @return The number of values.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the off-heap memory reserved for the arena.
+     *
+     * @return The number of bytes in all pages, including free slots and the unused end of the last page.
+     */
+    public long getOffHeapBytes() {
+        return (long) pageCount * PAGE_NODES * NODE_BYTES;
+    }
+
+    /**
+     * Gets the number of slots left by removed nodes that are waiting to be reused.
+     *
+     * @return The number of free slots.
+     */
+    public int getFreeSlots() {
+        return freeCount;
+    }
+
+    /**
+     * Gets the number of pages the arena has allocated.
+     *
+     * @return The number of pages.
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    private int get(int node, int field) {
+        return pages[node >>> PAGE_SHIFT].get((node & PAGE_MASK) * NODE_INTS + field);
+    }
+
+    private void set(int node, int field, int value) {
+        pages[node >>> PAGE_SHIFT].put((node & PAGE_MASK) * NODE_INTS + field, value);
+    }
+
+    /**
+     * Takes a slot for a new leaf, reusing a free one if there is any.
+     */
+    private int allocate(int value) {
+        int node;
+        if (freeHead != NIL) {
+            node = freeHead;
+            freeHead = get(node, LEFT);
+            freeCount--;
+        } else {
+            if (nextNode < 0) {
+                throw new IllegalStateException("The arena tree cannot hold more than " + Integer.MAX_VALUE
+                        + " nodes.");
+            }
+            if (nextNode >>> PAGE_SHIFT == pageCount) {
+                addPage();
+            }
+            node = nextNode++;
+        }
+        set(node, VALUE, value);
+        set(node, LEFT, NIL);
+        set(node, RIGHT, NIL);
+        set(node, SIZE, 1);
+        return node;
+    }
+
+    private void free(int node) {
+        set(node, LEFT, freeHead);
+        freeHead = node;
+        freeCount++;
+    }
+
+    private void addPage() {
+        if (pageCount == pages.length) {
+            pages = Arrays.copyOf(pages, pageCount * 2);
+        }
+        pages[pageCount++] = ByteBuffer.allocateDirect(PAGE_NODES * NODE_BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+    }
+
+    /**
+     * Writes the values in pre-order, the same payload as a {@link BinaryTree}, so the exact shape comes back.
+     */
+    @Override
+    void writeSnapshot(Snapshot.Target target) throws IOException {
+        IntBuffer out = target.open(size, size);
+        int[] stack = new int[16];
+        int top = 0;
+        if (root != NIL) {
+            stack[top++] = root;
+        }
+        while (top > 0) {
+            int node = stack[--top];
+            out.put(get(node, VALUE));
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            if (get(node, RIGHT) != NIL) {
+                stack[top++] = get(node, RIGHT);
+            }
+            if (get(node, LEFT) != NIL) {
+                stack[top++] = get(node, LEFT);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the tree from its pre-order values in one linear pass, like {@link BinaryTree}.
+     *
+     * <p>The tree is empty, so the arena is reset and the nodes take the indexes 1 to {@code size} in pre-order.
+     * Every child then has a higher index than its parent, and a second pass from the last index down fills in
+     * the subtree sizes.</p>
+     */
+    @Override
+    void readSnapshot(IntBuffer in, int size) {
+        nextNode = 1;
+        freeHead = NIL;
+        freeCount = 0;
+        int[] stack = new int[16];
+        int top = 0;
+        // Once a node has gone right of a parent, every later value must exceed that parent
+        boolean bounded = false;
+        int lowerBound = 0;
+        for (int i = 0; i < size; i++) {
+            int value = in.get();
+            if (bounded && value <= lowerBound) {
+                throw new IllegalArgumentException("the values are not a pre-order walk of a binary search tree.");
+            }
+
+            int node;
+            if (root == NIL) {
+                node = allocate(value);
+                root = node;
+            } else if (value < get(stack[top - 1], VALUE)) {
+                node = allocate(value);
+                set(stack[top - 1], LEFT, node);
+            } else {
+                int parent = NIL;
+                while (top > 0 && value > get(stack[top - 1], VALUE)) {
+                    parent = stack[--top];
+                }
+                if (parent == NIL || (top > 0 && get(stack[top - 1], VALUE) == value)) {
+                    throw new IllegalArgumentException("the values contain a duplicate.");
+                }
+                node = allocate(value);
+                set(parent, RIGHT, node);
+                bounded = true;
+                lowerBound = get(parent, VALUE);
+            }
+
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[top++] = node;
+        }
+        for (int node = size; node > 0; node--) {
+            int left = get(node, LEFT);
+            int right = get(node, RIGHT);
+            set(node, SIZE, 1 + (left == NIL ? 0 : get(left, SIZE)) + (right == NIL ? 0 : get(right, SIZE)));
+        }
+        this.size = size;
+        markModified();
+    }
+
+    /**
+     * Gets a lazy iterator over the values in ascending order, walking the arena with a stack of indexes.
+     *
+     * @return An iterator that fails if the tree is changed while it is in use.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private final long expectedModificationCount = getModificationCount();
+            private int[] stack = new int[16];
+            private int top;
+            private int current = root;
+
+            @Override
+            public boolean hasNext() {
+                return current != NIL || top > 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (getModificationCount() != expectedModificationCount) {
+                    throw new ConcurrentModificationException();
+                }
+                while (current != NIL) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = current;
+                    current = get(current, LEFT);
+                }
+                int node = stack[--top];
+                current = get(node, RIGHT);
+                return get(node, VALUE);
+            }
+        };
+    }
+
+    /**
+     * Gets a spliterator over the values in ascending order that knows the size of the tree.
+     *
+     * @return A spliterator over the values.
+     */
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return Spliterators.spliterator(iterator(), size,
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    /**
+     * Performs an in-order traversal of the tree, printing the values as they are visited.
+     */
+    @Override
+    public void traverse() {
+        System.out.print("Arena Tree In-order Traversal: ");
+        for (PrimitiveIterator.OfInt values = iterator(); values.hasNext(); ) {
+            System.out.print(values.nextInt() + " ");
+        }
+        System.out.println();
+    }
+
+    /**
+     * Writes the visual representation of the tree.
+     *
+     * <p>The layout is the same as {@link BinaryTree}'s, written by the renderer all trees share: nodes in
+     * pre-order, indented by depth, with only the rows and levels inside the viewport written and a node whose
+     * children are hidden shown with the number of nodes beneath it. Subtrees that lie wholly above the
+     * viewport are skipped by their recorded sizes. The renderer walks the node indexes on an int stack, so
+     * it allocates nothing per node it visits.</p>
+     *
+     * @param out The destination the representation is streamed into.
+     * @param viewport The rows and levels of the tree to render.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    @Override
+    public void writeVisualRepresentation(Appendable out, Viewport viewport) throws IOException {
+        TreeRenderer.write(out, shape, root, viewport);
+    }
+}
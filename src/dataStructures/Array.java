@@ -1,4 +1,353 @@
 package dataStructures;
 
-public class Array {
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Implementation of a growable array of primitive ints.
+ *
+ * <p>Elements are stored contiguously in an {@code int[]} that grows by half its size when full, so
+ * appending is amortized O(1) and no element is ever boxed or given its own node. In sorted mode the
+ * elements are kept in ascending order: additions are placed with a binary search and lookups use binary
+ * search instead of a linear scan. Duplicate values are allowed in both modes.</p>
+ */
+public class Array extends DataStructure {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] elements;
+    private int size;
+    private final boolean sorted;
+
+    /**
+     * Constructs an empty array that keeps elements in insertion order.
+     */
+    public Array() {
+        this(false);
+    }
+
+    /**
+     * Constructs an empty array.
+     *
+     * @param sorted Whether the elements are kept in ascending order.
+     */
+    public Array(boolean sorted) {
+        this.elements = new int[DEFAULT_CAPACITY];
+        this.sorted = sorted;
+    }
+
+    @Override
+    public String getName() {
+        return sorted ? "sorted array" : "array";
+    }
+
+    /**
+     * Adds a value to the array.
+     *
+     * <p>In insertion order mode the value is appended to the end. In sorted mode it is inserted after any
+     * equal values, shifting the larger elements up by one position.</p>
+     *
+     * @param value The value to be added to the array.
+     */
+    @Override
+    public void addNode(int value) {
+        ensureCapacity(size + 1);
+        if (sorted) {
+            int index = upperBound(value);
+            System.arraycopy(elements, index, elements, index + 1, size - index);
+            elements[index] = value;
+        } else {
+            elements[size] = value;
+        }
+        size++;
+        markModified();
+        emit(Operation.ADD, value, Outcome.SUCCESS);
+    }
+
+    /**
+     * Adds every value of the given array in one step.
+     *
+     * <p>The storage is grown at most once. In insertion order mode the values are copied to the end in
+     * a single block. In sorted mode they are sorted on their own and then merged with the existing
+     * elements from the back, so the whole operation is O(n + m log m) instead of m separate insertions.</p>
+     *
+     * @param values The values to be added.
+     */
+    public void addAll(int[] values) {
+        bulkLoad(values);
+        for (int value : values) {
+            emit(Operation.ADD, value, Outcome.SUCCESS);
+        }
+    }
+
+    /**
+     * Adds many values at once, like {@link #addAll(int[])} but without reporting them.
+     *
+     * @param values The values to be added, which are not modified.
+     */
+    @Override
+    public void bulkLoad(int[] values) {
+        if (values.length == 0) {
+            return;
+        }
+        ensureCapacity(size + values.length);
+
+        if (sorted) {
+            int[] additions = values.clone();
+            Arrays.sort(additions);
+            int existing = size - 1;
+            int added = additions.length - 1;
+            for (int target = size + additions.length - 1; added >= 0; target--) {
+                if (existing >= 0 && elements[existing] > additions[added]) {
+                    elements[target] = elements[existing--];
+                } else {
+                    elements[target] = additions[added--];
+                }
+            }
+        } else {
+            System.arraycopy(values, 0, elements, size, values.length);
+        }
+        size += values.length;
+        markModified();
+    }
+
+    /**
+     * Removes the first occurrence of a value from the array.
+     *
+     * <p>The elements after it are shifted down by one position. If the value is not in the array, a
+     * {@link Outcome#NOT_FOUND} event is reported, and if the array is empty an {@link Outcome#EMPTY} one.</p>
+     *
+     * @param value The value to be removed from the array.
+     */
+    @Override
+    public void removeNode(int value) {
+        if (size == 0) {
+            emit(Operation.REMOVE, value, Outcome.EMPTY);
+            return;
+        }
+
+        int index = indexOf(value);
+        if (index < 0) {
+            emit(Operation.REMOVE, value, Outcome.NOT_FOUND);
+            return;
+        }
+
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        markModified();
+        emit(Operation.REMOVE, value, Outcome.SUCCESS);
+    }
+
+    /**
+     * Finds the first occurrence of a value.
+     *
+     * <p>Sorted arrays use a binary search; otherwise the elements are scanned from the start.</p>
+     *
+     * @param value The value to look for.
+     * @return The index of the first occurrence, or -1 if the value is not in the array.
+     */
+    public int indexOf(int value) {
+        if (sorted) {
+            int index = lowerBound(value);
+            return index < size && elements[index] == value ? index : -1;
+        }
+
+        int[] data = elements;
+        for (int i = 0, n = size; i < n; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the element at the given index.
+     *
+     * @param index The index of the element.
+     * @return The element.
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size + ".");
+        }
+        return elements[index];
+    }
+
+    /**
+     * Gets the number of elements in the array.
+     *
+     * @return The number of elements.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the elements are kept in ascending order.
+     *
+     * @return True if the array is in sorted mode.
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    @Override
+    void writeSnapshot(Snapshot.Target target) throws IOException {
+        target.open(size, size).put(elements, 0, size);
+    }
+
+    @Override
+    void readSnapshot(IntBuffer in, int size) {
+        elements = new int[Math.max(DEFAULT_CAPACITY, size)];
+        in.get(elements, 0, size);
+        if (sorted) {
+            for (int i = 1; i < size; i++) {
+                if (elements[i] < elements[i - 1]) {
+                    throw new IllegalArgumentException("the elements of a sorted array are out of order.");
+                }
+            }
+        }
+        this.size = size;
+        markModified();
+    }
+
+    /**
+     * Finds the first index whose element is not less than the value.
+     */
+    private int lowerBound(int value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (elements[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first index whose element is greater than the value.
+     */
+    private int upperBound(int value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (elements[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > elements.length) {
+            int grown = (int) Math.min(Integer.MAX_VALUE - 8, elements.length + ((long) elements.length >> 1));
+            elements = Arrays.copyOf(elements, Math.max(capacity, grown));
+        }
+    }
+
+    /**
+     * Gets a lazy iterator over the values in index order.
+     *
+     * @return An iterator that fails if the array is changed while it is in use.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private final long expectedModificationCount = getModificationCount();
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public int nextInt() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                if (getModificationCount() != expectedModificationCount) {
+                    throw new ConcurrentModificationException();
+                }
+                return elements[index++];
+            }
+        };
+    }
+
+    /**
+     * Gets a spliterator over the values in index order that splits the backing array by halves.
+     *
+     * <p>In sorted mode it reports {@link Spliterator#SORTED}. The array must not be changed while the
+     * spliterator is in use.</p>
+     *
+     * @return A spliterator over the values.
+     */
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return Spliterators.spliterator(elements, 0, size, Spliterator.ORDERED | (sorted ? Spliterator.SORTED : 0));
+    }
+
+    /**
+     * Displays the elements in the array.
+     *
+     * <p>This method prints each element's value to the console in index order.</p>
+     */
+    @Override
+    public void traverse() {
+        System.out.print("Array: ");
+        for (int i = 0; i < size; i++) {
+            System.out.print(elements[i] + " ");
+        }
+        System.out.println();
+    }
+
+    /**
+     * Writes the visual representation of the array.
+     *
+     * <p>This method streams the elements as a comma-separated list in square brackets. Because elements
+     * are indexed directly, only the elements inside the viewport are visited; the ones before and after
+     * it are replaced by a count.</p>
+     *
+     * @param out The destination the representation is streamed into.
+     * @param viewport The range of elements to render.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    @Override
+    public void writeVisualRepresentation(Appendable out, Viewport viewport) throws IOException {
+        int offset = Math.min(viewport.getOffset(), size);
+        int end = Math.min(viewport.getEnd(), size);
+
+        out.append('[');
+        if (offset > 0) {
+            out.append("... (");
+            appendValue(out, offset);
+            out.append(" more)");
+        }
+        for (int i = offset; i < end; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            appendValue(out, elements[i]);
+        }
+        if (end < size) {
+            out.append(size > 0 ? ", ... (" : "... (");
+            appendValue(out, size - end);
+            out.append(" more)");
+        }
+        out.append(']');
+    }
 }
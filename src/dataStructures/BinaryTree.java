@@ -1,12 +1,27 @@
 package dataStructures;
 
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
 /**
  * The BinaryTree class represents a binary tree data structure.
  *
  * <p>This class includes methods for adding and removing nodes, traversing the tree,
  * and generating a visual representation suitable for display in the VisualisationEngine.</p>
+ *
+ * <p>Nodes are never changed once they are part of the tree. Adding or removing a value copies the
+ * nodes on the path from the root to the change and shares every other subtree, so each change costs
+ * O(depth) new nodes and a captured version is just the root it had.</p>
+ *
+ * <p>Every node also records the number and the sum of the values in its subtree, and its height. Since
+ * the copied nodes are built from their children, the totals come for free with each change, and order
+ * statistics and range queries walk a single path in O(depth) time, O(log n) when the tree is balanced.</p>
  */
-public class BinaryTree extends DataStructure {
+public class BinaryTree extends DataStructure implements Versioned {
     private Node root;
 
     /**
@@ -16,59 +31,150 @@ public class BinaryTree extends DataStructure {
         int value;
         Node left;
         Node right;
+        int size;
+        int height;
+        long sum;
 
         /**
-         * Constructs a new node with the specified value.
+         * Constructs a new node with the specified value and children.
          *
          * @param value The value of the node.
+         * @param left The left child, or null.
+         * @param right The right child, or null.
          */
-        Node(int value) {
+        Node(int value, Node left, Node right) {
             this.value = value;
-            this.left = null;
-            this.right = null;
+            this.left = left;
+            this.right = right;
+            updateTotals();
+        }
+
+        /**
+         * Recomputes the size, height and sum of the subtree from the children.
+         */
+        void updateTotals() {
+            size = size(left) + size(right) + 1;
+            height = Math.max(height(left), height(right)) + 1;
+            sum = sum(left) + sum(right) + value;
+        }
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static long sum(Node node) {
+        return node == null ? 0 : node.sum;
+    }
+
+    private static final TreeSpliterator.Shape<Node> SHAPE = new TreeSpliterator.Shape<Node>() {
+        @Override
+        public Node left(Node node) {
+            return node.left;
+        }
+
+        @Override
+        public Node right(Node node) {
+            return node.right;
         }
+
+        @Override
+        public int value(Node node) {
+            return node.value;
+        }
+
+        @Override
+        public int size(Node node) {
+            return node.size;
+        }
+    };
+
+    @Override
+    public String getName() {
+        return "binary tree";
     }
 
     /**
      * Adds a new node with the specified value to the binary tree.
      *
      * <p>This method adds a new node with the given value to the binary tree
-     * while maintaining the binary search tree property.</p>
+     * while maintaining the binary search tree property. Adding a value that is already
+     * in the tree leaves it unchanged and is reported as {@link Outcome#DUPLICATE}.</p>
      *
      * @param value The value to be added to the binary tree.
      */
     @Override
     public void addNode(int value) {
+        long modificationCount = getModificationCount();
         root = addNodeRecursive(root, value);
-        System.out.println("Added node with value: " + value);
+        emit(Operation.ADD, value,
+                getModificationCount() != modificationCount ? Outcome.SUCCESS : Outcome.DUPLICATE);
     }
 
     private Node addNodeRecursive(Node current, int value) {
         if (current == null) {
-            return new Node(value);
+            markModified();
+            return new Node(value, null, null);
         }
 
         if (value < current.value) {
-            current.left = addNodeRecursive(current.left, value);
+            Node left = addNodeRecursive(current.left, value);
+            return left == current.left ? current : new Node(current.value, left, current.right);
         } else if (value > current.value) {
-            current.right = addNodeRecursive(current.right, value);
+            Node right = addNodeRecursive(current.right, value);
+            return right == current.right ? current : new Node(current.value, current.left, right);
         }
 
         return current;
     }
 
+    /**
+     * Adds many values at once and rebuilds the tree perfectly balanced.
+     *
+     * <p>The new values are sorted and merged with the values already in the tree, which an in-order walk
+     * yields sorted, and the tree is then built from the middle of the merged values outwards in O(n), each node
+     * from its finished children. Unlike adding the values one by one, sorted input does not degenerate the tree
+     * into a list. The old nodes are not changed, so captured versions are unaffected.</p>
+     *
+     * @param values The values to add, which are not modified.
+     */
+    @Override
+    public void bulkLoad(int[] values) {
+        if (values.length == 0) {
+            return;
+        }
+        int[] union = sortedUnion(iterator(), size(root), values);
+        root = buildBalanced(union, 0, union.length);
+        markModified();
+    }
+
+    private static Node buildBalanced(int[] values, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node(values[middle], buildBalanced(values, from, middle), buildBalanced(values, middle + 1, to));
+    }
+
     /**
      * Removes a node with the specified value from the binary tree.
      *
      * <p>This method removes a node with the given valur from the binary tree
-     * while maintaining the binary search tree property.</p>
+     * while maintaining the binary search tree property. Removing a value that is not in
+     * the tree is reported as {@link Outcome#NOT_FOUND}.</p>
      *
      * @param value The value to be removed from the binary tree.
      */
     @Override
     public void removeNode(int value) {
+        long modificationCount = getModificationCount();
         root = removeNodeRecursive(root, value);
-        System.out.println("Removed node with value: " + value);
+        emit(Operation.REMOVE, value,
+                getModificationCount() != modificationCount ? Outcome.SUCCESS : Outcome.NOT_FOUND);
     }
 
     private Node removeNodeRecursive(Node current, int value) {
@@ -78,6 +184,7 @@ public class BinaryTree extends DataStructure {
 
         if (value == current.value) {
             // Node to be deleted found
+            markModified();
 
             // Case 1: Node with only one child or no child
             if (current.left == null) {
@@ -86,18 +193,16 @@ public class BinaryTree extends DataStructure {
                 return current.left;
             }
 
-            // Case 2: Node with two children
-            current.value = findMinValue(current.right);
-
-            // Delete the in-order successor
-            current.right = removeNodeRecursive(current.right, current.value);
+            // Case 2: Node with two children, replaced by its in-order successor
+            int successor = findMinValue(current.right);
+            return new Node(successor, current.left, removeNodeRecursive(current.right, successor));
         } else if (value < current.value) {
-            current.left = removeNodeRecursive(current.left, value);
+            Node left = removeNodeRecursive(current.left, value);
+            return left == current.left ? current : new Node(current.value, left, current.right);
         } else {
-            current.right = removeNodeRecursive(current.right, value);
+            Node right = removeNodeRecursive(current.right, value);
+            return right == current.right ? current : new Node(current.value, current.left, right);
         }
-
-        return current;
     }
 
     private int findMinValue(Node node) {
@@ -105,54 +210,302 @@ public class BinaryTree extends DataStructure {
     }
 
     /**
-     * Performs an in-order traversal of the binary tree.
+     * Gets the number of values in the tree.
      *
-     * <p>This method traverses the binary tree in in-order fashion, printing the values
-     * of the nodes as they are visited.</p>
+     * @return The number of values.
      */
     @Override
-    public void traverse() {
-        System.out.print("Binary Tree In-order Traversal: ");
-        inOrderTraversal(root);
-        System.out.println();
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Gets the height of the tree, which the root records.
+     *
+     * @return The number of nodes on the longest path from the root to a leaf, or 0 if the tree is empty.
+     */
+    public int height() {
+        return height(root);
     }
 
-    private void inOrderTraversal(Node node) {
-        if (node != null) {
-            inOrderTraversal(node.left);
-            System.out.print(node.value + " ");
-            inOrderTraversal(node.right);
+    /**
+     * Finds the k-th smallest value in the tree.
+     *
+     * @param k The position of the value in ascending order, starting from 1.
+     * @return The value.
+     * @throws IndexOutOfBoundsException If {@code k} is not between 1 and the size of the tree.
+     */
+    public int select(int k) {
+        if (k < 1 || k > size(root)) {
+            throw new IndexOutOfBoundsException("Position " + k + " is not between 1 and " + size(root) + ".");
+        }
+        Node current = root;
+        int remaining = k;
+        while (true) {
+            int leftSize = size(current.left);
+            if (remaining <= leftSize) {
+                current = current.left;
+            } else if (remaining == leftSize + 1) {
+                return current.value;
+            } else {
+                remaining -= leftSize + 1;
+                current = current.right;
+            }
         }
     }
 
     /**
-     * Gets the visual representation of the binary tree.
+     * Gets the position a value has, or would have, in ascending order.
      *
-     * <p>This method generates a visual representation of the binary tree suitable for display
-     * in the VisualisationEngine. The representation includes indentation to represent the
-     * hierarchical structure of the tree.</p>
+     * @param value The value to rank.
+     * @return One more than the number of smaller values, so that {@code select(rank(value)) == value} for
+     *         every value in the tree.
+     */
+    public int rank(int value) {
+        return countBelow(value, false) + 1;
+    }
+
+    /**
+     * Counts the values in a range.
      *
-     * @return The visual representation of the binary tree.
+     * @param low The smallest value of the range.
+     * @param high The largest value of the range.
+     * @return The number of values between {@code low} and {@code high}, both included, or 0 if
+     *         {@code low > high}.
+     */
+    public int countRange(int low, int high) {
+        return low > high ? 0 : countBelow(high, true) - countBelow(low, false);
+    }
+
+    /**
+     * Adds up the values in a range.
+     *
+     * @param low The smallest value of the range.
+     * @param high The largest value of the range.
+     * @return The sum of the values between {@code low} and {@code high}, both included, or 0 if
+     *         {@code low > high}.
+     */
+    public long sumRange(int low, int high) {
+        return low > high ? 0 : sumBelow(high, true) - sumBelow(low, false);
+    }
+
+    /**
+     * Counts the values smaller than a bound, or not larger than it if {@code inclusive}, on one path down.
+     */
+    private int countBelow(int bound, boolean inclusive) {
+        int count = 0;
+        Node current = root;
+        while (current != null) {
+            if (current.value < bound || (inclusive && current.value == bound)) {
+                count += size(current.left) + 1;
+                current = current.right;
+            } else {
+                current = current.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds up the values smaller than a bound, or not larger than it if {@code inclusive}, on one path down.
      */
+    private long sumBelow(int bound, boolean inclusive) {
+        long total = 0;
+        Node current = root;
+        while (current != null) {
+            if (current.value < bound || (inclusive && current.value == bound)) {
+                total += sum(current.left) + current.value;
+                current = current.right;
+            } else {
+                current = current.left;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public Object captureVersion() {
+        return root;
+    }
+
     @Override
-    public String getVisualRepresentation() {
-        return visualRepresentationRecursive(root, 0);
+    public void restoreVersion(Object version) {
+        root = (Node) version;
+        markModified();
     }
 
-    private String visualRepresentationRecursive(Node node, int depth) {
-        StringBuilder visualRepresentation = new StringBuilder();
+    /**
+     * Writes the values in pre-order, which is enough to rebuild the exact shape of the tree.
+     */
+    @Override
+    void writeSnapshot(Snapshot.Target target) throws IOException {
+        Node[] stack = new Node[16];
+        int top = 0;
+        int count = 0;
+        if (root != null) {
+            stack[top++] = root;
+        }
+        while (top > 0) {
+            Node node = stack[--top];
+            count++;
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            if (node.right != null) {
+                stack[top++] = node.right;
+            }
+            if (node.left != null) {
+                stack[top++] = node.left;
+            }
+        }
+
+        IntBuffer out = target.open(count, count);
+        if (root != null) {
+            stack[top++] = root;
+        }
+        while (top > 0) {
+            Node node = stack[--top];
+            out.put(node.value);
+            if (node.right != null) {
+                stack[top++] = node.right;
+            }
+            if (node.left != null) {
+                stack[top++] = node.left;
+            }
+        }
+    }
 
-        if (node != null) {
-            for (int i = 0; i < depth; i++) {
-                visualRepresentation.append("  ");
+    /**
+     * Rebuilds the tree from its pre-order values in one linear pass.
+     *
+     * <p>Inserting the values in pre-order would give the same shape, but costs a walk from the root per
+     * value. Instead the stack holds the path of nodes still waiting for a right child: a smaller value
+     * becomes the left child of the last node, and a larger one becomes the right child of the deepest
+     * node on the path that it exceeds. Every node comes before its descendants in pre-order, so the subtree
+     * totals are filled in afterwards by visiting the nodes in reverse.</p>
+     */
+    @Override
+    void readSnapshot(IntBuffer in, int size) {
+        Node[] preOrder = new Node[size];
+        Node[] stack = new Node[16];
+        int top = 0;
+        // Once a node has gone right of a parent, every later value must exceed that parent
+        boolean bounded = false;
+        int lowerBound = 0;
+        for (int i = 0; i < size; i++) {
+            // The nodes are new, so linking them up in place does not affect any version
+            Node node = new Node(in.get(), null, null);
+            preOrder[i] = node;
+            if (bounded && node.value <= lowerBound) {
+                throw new IllegalArgumentException("the values are not a pre-order walk of a binary search tree.");
             }
 
-            visualRepresentation.append("[").append(node.value).append("]\n");
+            if (root == null) {
+                root = node;
+            } else if (node.value < stack[top - 1].value) {
+                stack[top - 1].left = node;
+            } else {
+                Node parent = null;
+                while (top > 0 && node.value > stack[top - 1].value) {
+                    parent = stack[--top];
+                }
+                if (parent == null || (top > 0 && stack[top - 1].value == node.value)) {
+                    throw new IllegalArgumentException("the values contain a duplicate.");
+                }
+                parent.right = node;
+                bounded = true;
+                lowerBound = parent.value;
+            }
 
-            visualRepresentation.append(visualRepresentationRecursive(node.left, depth + 1));
-            visualRepresentation.append(visualRepresentationRecursive(node.right, depth + 1));
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[top++] = node;
         }
+        for (int i = size - 1; i >= 0; i--) {
+            preOrder[i].updateTotals();
+        }
+        markModified();
+    }
 
-        return visualRepresentation.toString();
+    /**
+     * Gets a lazy iterator over the values in ascending order.
+     *
+     * <p>Nodes are never changed, so the iterator walks the tree as it was when it was created and later
+     * changes do not affect it. The walk uses an explicit stack, so unbalanced trees of any depth are fine.</p>
+     *
+     * @return An iterator over the values.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * Gets a spliterator over the values in ascending order.
+     *
+     * <p>It splits the tree at its subtrees without copying any values. Every node records the size of its
+     * subtree, so the spliterator and each part split from it report their exact sizes, even when the tree is
+     * unbalanced and the parts are uneven.</p>
+     *
+     * @return A spliterator over the values.
+     */
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return new TreeSpliterator<>(SHAPE, root, size(), Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * Performs an in-order traversal of the binary tree.
+     *
+     * <p>This method traverses the binary tree in in-order fashion, printing the values
+     * of the nodes as they are visited by {@link #iterator()}.</p>
+     */
+    @Override
+    public void traverse() {
+        System.out.print("Binary Tree In-order Traversal: ");
+        for (PrimitiveIterator.OfInt values = iterator(); values.hasNext(); ) {
+            System.out.print(values.nextInt() + " ");
+        }
+        System.out.println();
+    }
+
+    /**
+     * Writes the visual representation of the binary tree.
+     *
+     * <p>This method streams a visual representation of the binary tree suitable for display
+     * in the VisualisationEngine. The representation includes indentation to represent the
+     * hierarchical structure of the tree. Nodes are visited in pre-order with an explicit stack,
+     * so unbalanced trees of any depth can be rendered.</p>
+     *
+     * <p>Only the rows inside the viewport are written, and the walk never descends below the
+     * viewport depth: a node whose children are hidden is shown with the number of nodes hidden
+     * beneath it, which every node tracks. The layout is written by the renderer all trees share, which
+     * uses the same counts to skip whole subtrees above the viewport.</p>
+     *
+     * @param out The destination the representation is streamed into.
+     * @param viewport The rows and levels of the tree to render.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    @Override
+    public void writeVisualRepresentation(Appendable out, Viewport viewport) throws IOException {
+        writeVisualRepresentation(out, viewport, 1, 0);
+    }
+
+    /**
+     * Writes the visual representation of the binary tree with the values in a range highlighted.
+     *
+     * <p>The layout is the same as {@link #writeVisualRepresentation(Appendable, Viewport)}, except that each
+     * node whose value lies in the range is marked with a "*" after its brackets, for example to show which
+     * values a range query counted.</p>
+     *
+     * @param out The destination the representation is streamed into.
+     * @param viewport The rows and levels of the tree to render.
+     * @param low The smallest highlighted value.
+     * @param high The largest highlighted value; nothing is highlighted if it is less than {@code low}.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    public void writeVisualRepresentation(Appendable out, Viewport viewport, int low, int high) throws IOException {
+        TreeRenderer.write(out, SHAPE, root, viewport, low, high);
     }
 }
@@ -0,0 +1,161 @@
+package dataStructures;
+
+import java.io.IOException;
+
+/**
+ * The result of a level-by-level breadth-first search of a {@link DirectedGraph}.
+ *
+ * <p>The reached vertices are stored level by level in one array: level {@code d} holds the vertices
+ * whose shortest distance from the start is {@code d}. The distance and the parent of each vertex, that
+ * is the vertex it was first reached from, are kept in arrays aligned with the vertices. Within a level
+ * the vertices are in the order they were added to the graph. When a vertex can be reached from several
+ * vertices of the previous level, a parallel search may record any of them as its parent.</p>
+ */
+public final class BreadthFirstLevels {
+    private final int start;
+    private final int[] vertices;
+    private final int[] distances;
+    private final int[] parents;
+    private final int[] levelOffsets;
+    private final int parallelism;
+
+    BreadthFirstLevels(int start, int[] vertices, int[] distances, int[] parents, int[] levelOffsets,
+                       int parallelism) {
+        this.start = start;
+        this.vertices = vertices;
+        this.distances = distances;
+        this.parents = parents;
+        this.levelOffsets = levelOffsets;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Gets the value of the vertex the search started from.
+     *
+     * @return The start vertex.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the reached vertices, level by level.
+     *
+     * @return The values of the reached vertices. The array is shared, not copied.
+     */
+    public int[] getVertices() {
+        return vertices;
+    }
+
+    /**
+     * Gets the distance from the start of every reached vertex.
+     *
+     * @return The number of edges on a shortest path to each vertex of {@link #getVertices()}.
+     *         The array is shared, not copied.
+     */
+    public int[] getDistances() {
+        return distances;
+    }
+
+    /**
+     * Gets the parent of every reached vertex in the breadth-first search tree.
+     *
+     * @return The value of the vertex each vertex of {@link #getVertices()} was first reached from. The start
+     *         is its own parent. The array is shared, not copied.
+     */
+    public int[] getParents() {
+        return parents;
+    }
+
+    /**
+     * Gets the number of reached vertices, including the start.
+     *
+     * @return The number of reached vertices.
+     */
+    public int getVertexCount() {
+        return vertices.length;
+    }
+
+    /**
+     * Gets the number of levels, which is one more than the distance to the farthest reached vertex.
+     *
+     * @return The number of levels, or 0 if the start vertex was not in the graph.
+     */
+    public int getLevelCount() {
+        return levelOffsets.length - 1;
+    }
+
+    /**
+     * Gets the index in {@link #getVertices()} of the first vertex of a level.
+     *
+     * @param level The level, where level 0 holds only the start.
+     * @return The index of the first vertex at that distance.
+     */
+    public int getLevelStart(int level) {
+        return levelOffsets[level];
+    }
+
+    /**
+     * Gets the number of vertices at a given distance from the start.
+     *
+     * @param level The level, where level 0 holds only the start.
+     * @return The number of vertices in that level.
+     */
+    public int getLevelSize(int level) {
+        return levelOffsets[level + 1] - levelOffsets[level];
+    }
+
+    /**
+     * Gets the number of worker threads the search ran on.
+     *
+     * @return The parallelism of the search, which is 1 for a sequential search.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Writes the levels, one per line, for example {@code Level 1: 2, 3}.
+     *
+     * <p>The viewport selects which levels are shown and also limits how many vertices of a single level
+     * are listed; hidden levels and vertices are replaced by a count.</p>
+     *
+     * @param out The destination the levels are streamed into.
+     * @param viewport The range of levels to render.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    public void writeLevels(Appendable out, Viewport viewport) throws IOException {
+        int levelCount = getLevelCount();
+        int offset = Math.min(viewport.getOffset(), levelCount);
+        int end = Math.min(viewport.getEnd(), levelCount);
+        if (offset > 0) {
+            out.append("... (");
+            DataStructure.appendValue(out, offset);
+            out.append(" levels above)\n");
+        }
+
+        for (int level = offset; level < end; level++) {
+            out.append("Level ");
+            DataStructure.appendValue(out, level);
+            out.append(':');
+            int first = levelOffsets[level];
+            int shown = Math.min(getLevelSize(level), viewport.getSize());
+            for (int i = first; i < first + shown; i++) {
+                out.append(i == first ? " " : ", ");
+                DataStructure.appendValue(out, vertices[i]);
+            }
+            if (shown < getLevelSize(level)) {
+                out.append(", ... (");
+                DataStructure.appendValue(out, getLevelSize(level) - shown);
+                out.append(" more)");
+            }
+            out.append('\n');
+        }
+
+        if (end < levelCount) {
+            out.append("... (");
+            DataStructure.appendValue(out, levelCount - end);
+            out.append(" more levels)\n");
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package dataStructures;
+
+import java.util.Arrays;
+
+/**
+ * An event sink that records events so they can be inspected or forwarded later.
+ *
+ * <p>Events are stored in parallel growable arrays, so recording costs no allocation once the arrays
+ * have grown to fit. A typical use is to collect the events of a burst of operations and then hand them
+ * to a {@link ConsoleEventSink} in one go with {@link #drainTo(EventSink)}.</p>
+ */
+public class BufferedEventSink implements EventSink {
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private DataStructure[] sources = new DataStructure[16];
+    private byte[] operations = new byte[16];
+    private int[] values = new int[16];
+    private int[] targets = new int[16];
+    private byte[] outcomes = new byte[16];
+    private int size;
+
+    @Override
+    public void onEvent(DataStructure source, Operation operation, int value, Outcome outcome) {
+        record(source, operation, value, 0, outcome);
+    }
+
+    @Override
+    public void onEdgeEvent(DataStructure source, Operation operation, int from, int to, Outcome outcome) {
+        record(source, operation, from, to, outcome);
+    }
+
+    private void record(DataStructure source, Operation operation, int value, int target, Outcome outcome) {
+        if (size == values.length) {
+            int capacity = size * 2;
+            sources = Arrays.copyOf(sources, capacity);
+            operations = Arrays.copyOf(operations, capacity);
+            values = Arrays.copyOf(values, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            outcomes = Arrays.copyOf(outcomes, capacity);
+        }
+        sources[size] = source;
+        operations[size] = (byte) operation.ordinal();
+        values[size] = value;
+        targets[size] = target;
+        outcomes[size] = (byte) outcome.ordinal();
+        size++;
+    }
+
+    /**
+     * Gets the number of recorded events.
+     *
+     * @return The number of events recorded since the last drain or clear.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the operation of a recorded event.
+     *
+     * @param index The index of the event, in the order events were recorded.
+     * @return The operation.
+     */
+    public Operation getOperation(int index) {
+        checkIndex(index);
+        return OPERATIONS[operations[index]];
+    }
+
+    /**
+     * Gets the value of a recorded event. For edge events this is the vertex the edge leaves.
+     *
+     * @param index The index of the event, in the order events were recorded.
+     * @return The value.
+     */
+    public int getValue(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * Gets the vertex an edge enters, for events recorded through {@link #onEdgeEvent}.
+     *
+     * @param index The index of the event, in the order events were recorded.
+     * @return The value of the target vertex, or 0 for events that are not about an edge.
+     */
+    public int getTarget(int index) {
+        checkIndex(index);
+        return targets[index];
+    }
+
+    /**
+     * Gets the outcome of a recorded event.
+     *
+     * @param index The index of the event, in the order events were recorded.
+     * @return The outcome.
+     */
+    public Outcome getOutcome(int index) {
+        checkIndex(index);
+        return OUTCOMES[outcomes[index]];
+    }
+
+    /**
+     * Forwards every recorded event, in order, to another sink and then clears the buffer.
+     *
+     * @param target The sink to forward the events to.
+     */
+    public void drainTo(EventSink target) {
+        for (int i = 0; i < size; i++) {
+            Operation operation = OPERATIONS[operations[i]];
+            if (operation == Operation.ADD_EDGE || operation == Operation.REMOVE_EDGE) {
+                target.onEdgeEvent(sources[i], operation, values[i], targets[i], OUTCOMES[outcomes[i]]);
+            } else {
+                target.onEvent(sources[i], operation, values[i], OUTCOMES[outcomes[i]]);
+            }
+        }
+        clear();
+    }
+
+    /**
+     * Discards every recorded event.
+     */
+    public void clear() {
+        Arrays.fill(sources, 0, size, null);
+        size = 0;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Event index " + index + " out of range for " + size + " events.");
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package dataStructures;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.EmptyStackException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementation of a lock-free stack that can be pushed to and popped from by many threads at once.
+ *
+ * <p>This is a Treiber stack: the elements form an immutable linked list and the only mutable state is
+ * a reference to the top element, which is swung to a new node with compare-and-set. A thread that loses
+ * the race re-reads the top and tries again after a short spin, so no thread ever blocks another. Each node
+ * also records the size of the stack it tops, so {@link #size()} is O(1) and readers such as the visual
+ * representation always see a consistent snapshot.</p>
+ *
+ * <p>Because the nodes are immutable, a captured version is just the top node.</p>
+ *
+ * <p>Unlike {@link Stack}, every push allocates a node. Use {@link Stack} when a single thread owns the
+ * stack.</p>
+ */
+public class ConcurrentStack extends DataStructure implements Versioned {
+    private final AtomicReference<Node> top = new AtomicReference<>();
+    private final LongAdder modifications = new LongAdder();
+
+    /**
+     * An immutable node of the stack.
+     */
+    private static final class Node {
+        final int value;
+        final Node next;
+        final int size;
+
+        Node(int value, Node next) {
+            this.value = value;
+            this.next = next;
+            this.size = next == null ? 1 : next.size + 1;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "concurrent stack";
+    }
+
+    /**
+     * Pushes an element onto the top of the stack.
+     * This operation is equivalent to {@link #push(int)}.
+     *
+     * @param value The value to be added to the stack.
+     */
+    @Override
+    public void addNode(int value) {
+        push(value);
+    }
+
+    /**
+     * Pops the top element from the stack.
+     *
+     * <p>If the stack is empty, an {@link Outcome#EMPTY} event is reported and nothing is removed.</p>
+     *
+     * @param value The value being removed from the stack.
+     */
+    @Override
+    public void removeNode(int value) {
+        Node popped = popNode();
+        if (popped == null) {
+            emit(Operation.POP, value, Outcome.EMPTY);
+            return;
+        }
+        emit(Operation.POP, popped.value, Outcome.SUCCESS);
+    }
+
+    /**
+     * Pushes an element onto the top of the stack.
+     *
+     * @param value The value to be pushed.
+     */
+    public void push(int value) {
+        Node current = top.get();
+        Node node = new Node(value, current);
+        while (!top.compareAndSet(current, node)) {
+            Thread.onSpinWait();
+            current = top.get();
+            node = new Node(value, current);
+        }
+        markModified();
+        emit(Operation.PUSH, value, Outcome.SUCCESS);
+    }
+
+    /**
+     * Removes and returns the top element of the stack.
+     *
+     * @return The value of the top element.
+     * @throws EmptyStackException If the stack is empty.
+     */
+    public int pop() {
+        Node popped = popNode();
+        if (popped == null) {
+            throw new EmptyStackException();
+        }
+        emit(Operation.POP, popped.value, Outcome.SUCCESS);
+        return popped.value;
+    }
+
+    /**
+     * Unlinks the top node.
+     *
+     * @return The node that was on top, or null if the stack was empty.
+     */
+    private Node popNode() {
+        Node current = top.get();
+        while (current != null && !top.compareAndSet(current, current.next)) {
+            Thread.onSpinWait();
+            current = top.get();
+        }
+        if (current != null) {
+            markModified();
+        }
+        return current;
+    }
+
+    /**
+     * Returns the value of the top element without removing it.
+     *
+     * @return The value of the top element.
+     * @throws EmptyStackException If the stack is empty.
+     */
+    public int peak() {
+        Node current = top.get();
+        if (current == null) {
+            throw new EmptyStackException();
+        }
+        return current.value;
+    }
+
+    /**
+     * Gets the number of elements in the stack.
+     *
+     * @return The number of elements at the moment of the call.
+     */
+    @Override
+    public int size() {
+        Node current = top.get();
+        return current == null ? 0 : current.size;
+    }
+
+    /**
+     * Checks whether the stack is empty.
+     *
+     * @return True if the stack had no elements at the moment of the call.
+     */
+    public boolean isEmpty() {
+        return top.get() == null;
+    }
+
+    @Override
+    public Object captureVersion() {
+        return top.get();
+    }
+
+    @Override
+    public void restoreVersion(Object version) {
+        top.set((Node) version);
+        markModified();
+    }
+
+    @Override
+    void writeSnapshot(Snapshot.Target target) throws IOException {
+        // Write a single snapshot from the bottom to the top, the order in which the elements were pushed
+        Node current = top.get();
+        int[] values = new int[current == null ? 0 : current.size];
+        for (int i = values.length - 1; i >= 0; i--) {
+            values[i] = current.value;
+            current = current.next;
+        }
+        target.open(values.length, values.length).put(values);
+    }
+
+    @Override
+    void readSnapshot(IntBuffer in, int size) {
+        Node current = null;
+        for (int i = 0; i < size; i++) {
+            current = new Node(in.get(), current);
+        }
+        top.set(current);
+        markModified();
+    }
+
+    /**
+     * Gets the number of pushes and pops performed so far.
+     *
+     * <p>Threads count their modifications in a {@link LongAdder}, so counting does not add a second
+     * contended variable next to the top of the stack. The count is exact whenever no operation is in
+     * progress.</p>
+     *
+     * @return The modification count.
+     */
+    @Override
+    public long getModificationCount() {
+        return modifications.sum();
+    }
+
+    @Override
+    protected void markModified() {
+        modifications.increment();
+    }
+
+    /**
+     * Gets a lazy iterator over a snapshot of the values from the top to the bottom.
+     *
+     * <p>The top is loaded once, so the iterator sees the stack as it was when it was created, whatever
+     * other threads push or pop while it is in use.</p>
+     *
+     * @return An iterator over the values.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return iterator(top.get());
+    }
+
+    private static PrimitiveIterator.OfInt iterator(Node first) {
+        return new PrimitiveIterator.OfInt() {
+            private Node next = first;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                int value = next.value;
+                next = next.next;
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Gets a spliterator over a snapshot of the values from the top to the bottom, sized from the top node.
+     *
+     * @return A spliterator over the values.
+     */
+    @Override
+    public Spliterator.OfInt spliterator() {
+        Node first = top.get();
+        return Spliterators.spliterator(iterator(first), first == null ? 0 : first.size,
+                Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * Displays the elements in the stack.
+     *
+     * <p>This method prints a snapshot of the stack, from the top to the bottom, to the console.</p>
+     */
+    @Override
+    public void traverse() {
+        System.out.println("Concurrent Stack: ");
+        for (Node current = top.get(); current != null; current = current.next) {
+            System.out.print(current.value + " ");
+        }
+        System.out.println();
+    }
+
+    /**
+     * Writes the visual representation of a snapshot of the stack.
+     *
+     * <p>Each element is enclosed in square brackets on a new line, starting from the top. Elements above
+     * and below the viewport are replaced by a count of how many were skipped.</p>
+     *
+     * @param out The destination the representation is streamed into.
+     * @param viewport The range of elements to render, counted from the top.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    @Override
+    public void writeVisualRepresentation(Appendable out, Viewport viewport) throws IOException {
+        Node current = top.get();
+        int size = current == null ? 0 : current.size;
+        int offset = Math.min(viewport.getOffset(), size);
+        for (int i = 0; i < offset; i++) {
+            current = current.next;
+        }
+        if (offset > 0) {
+            out.append("... (");
+            appendValue(out, offset);
+            out.append(" more above)\n");
+        }
+
+        int shown = 0;
+        while (current != null && shown < viewport.getSize()) {
+            out.append('[');
+            appendValue(out, current.value);
+            out.append("] \n");
+            current = current.next;
+            shown++;
+        }
+
+        int remaining = size - offset - shown;
+        if (remaining > 0) {
+            out.append("... (");
+            appendValue(out, remaining);
+            out.append(" more below)\n");
+        }
+    }
+}
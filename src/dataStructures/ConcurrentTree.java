@@ -0,0 +1,243 @@
+package dataStructures;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe ordered set of ints, which any number of threads can add to and remove from while others
+ * read it.
+ *
+ * <p>The set is a balanced binary search tree of immutable nodes. A writer builds the updated tree by copying
+ * the O(log n) nodes on the path to its change and publishes it with a compare-and-set on the root; if another
+ * writer got there first, it rebuilds from the new root and tries again. Writers never hold a lock, and a reader
+ * that loads the root once sees a complete snapshot that is unaffected by later writes. {@link #traverse()} and
+ * the visual representation work this way, so rendering never blocks loading threads and never sees a
+ * half-applied update. The same snapshots serve as captured versions.</p>
+ *
+ * <p>Like {@link AVLTree}, duplicate values are ignored and reported as {@link Outcome#DUPLICATE}.</p>
+ */
+public class ConcurrentTree extends DataStructure implements Versioned {
+    private final AtomicReference<PersistentTree.Node> root = new AtomicReference<>();
+    private final LongAdder modifications = new LongAdder();
+
+    @Override
+    public String getName() {
+        return "concurrent tree";
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value The value to be added.
+     */
+    @Override
+    public void addNode(int value) {
+        PersistentTree.Node current = root.get();
+        PersistentTree.Node updated = PersistentTree.insert(current, value);
+        while (updated != current && !root.compareAndSet(current, updated)) {
+            Thread.onSpinWait();
+            current = root.get();
+            updated = PersistentTree.insert(current, value);
+        }
+
+        if (updated == current) {
+            emit(Operation.ADD, value, Outcome.DUPLICATE);
+            return;
+        }
+        markModified();
+        emit(Operation.ADD, value, Outcome.SUCCESS);
+    }
+
+    /**
+     * Adds many values at once.
+     *
+     * <p>The values are merged with a snapshot of the set and a balanced tree is built from the result in O(n),
+     * which is then published with a single compare-and-set on the root. If another writer changed the set in
+     * the meantime, the merge is redone from the new root, so no concurrent change is lost and readers see either
+     * none of the values or all of them.</p>
+     *
+     * @param values The values to add, which are not modified.
+     */
+    @Override
+    public void bulkLoad(int[] values) {
+        if (values.length == 0) {
+            return;
+        }
+        PersistentTree.Node current;
+        PersistentTree.Node updated;
+        do {
+            current = root.get();
+            int[] union = sortedUnion(Spliterators.iterator(PersistentTree.spliterator(current)),
+                    PersistentTree.size(current), values);
+            updated = PersistentTree.fromSorted(union, 0, union.length);
+        } while (!root.compareAndSet(current, updated));
+        markModified();
+    }
+
+    /**
+     * Removes a value from the set.
+     *
+     * @param value The value to be removed.
+     */
+    @Override
+    public void removeNode(int value) {
+        PersistentTree.Node current = root.get();
+        PersistentTree.Node updated = PersistentTree.delete(current, value);
+        while (updated != current && !root.compareAndSet(current, updated)) {
+            Thread.onSpinWait();
+            current = root.get();
+            updated = PersistentTree.delete(current, value);
+        }
+
+        if (updated == current) {
+            emit(Operation.REMOVE, value, Outcome.NOT_FOUND);
+            return;
+        }
+        markModified();
+        emit(Operation.REMOVE, value, Outcome.SUCCESS);
+    }
+
+    /**
+     * Checks whether a value is in the set.
+     *
+     * @param value The value to look for.
+     * @return True if the set contained the value at the moment of the call.
+     */
+    public boolean contains(int value) {
+        return PersistentTree.contains(root.get(), value);
+    }
+
+    /**
+     * Gets the number of values in the set.
+     *
+     * @return The number of values at the moment of the call.
+     */
+    @Override
+    public int size() {
+        return PersistentTree.size(root.get());
+    }
+
+    /**
+     * Gets the height of the tree.
+     *
+     * @return The number of nodes on the longest path from the root to a leaf, or 0 if the tree is empty.
+     */
+    public int height() {
+        return PersistentTree.height(root.get());
+    }
+
+    /**
+     * Takes a snapshot of the set.
+     *
+     * @return The values in ascending order, exactly as they were at one moment.
+     */
+    public int[] toArray() {
+        return PersistentTree.toArray(root.get());
+    }
+
+    @Override
+    public Object captureVersion() {
+        return root.get();
+    }
+
+    @Override
+    public void restoreVersion(Object version) {
+        root.set((PersistentTree.Node) version);
+        markModified();
+    }
+
+    @Override
+    void writeSnapshot(Snapshot.Target target) throws IOException {
+        int[] values = toArray();
+        target.open(values.length, values.length).put(values);
+    }
+
+    @Override
+    void readSnapshot(IntBuffer in, int size) {
+        int[] values = new int[size];
+        in.get(values);
+        for (int i = 1; i < size; i++) {
+            if (values[i] <= values[i - 1]) {
+                throw new IllegalArgumentException("the values are not in strictly ascending order.");
+            }
+        }
+        root.set(PersistentTree.fromSorted(values, 0, size));
+        markModified();
+    }
+
+    /**
+     * Gets the number of successful additions and removals so far.
+     *
+     * <p>Writers count in a {@link LongAdder}, so counting does not contend with the root. The count is exact
+     * whenever no operation is in progress.</p>
+     *
+     * @return The modification count.
+     */
+    @Override
+    public long getModificationCount() {
+        return modifications.sum();
+    }
+
+    @Override
+    protected void markModified() {
+        modifications.increment();
+    }
+
+    /**
+     * Gets a lazy iterator over a snapshot of the values in ascending order.
+     *
+     * <p>The root is loaded once, so the iterator sees the set as it was when it was created, whatever other
+     * threads add or remove while it is in use.</p>
+     *
+     * @return An iterator over the values.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * Gets a spliterator over a snapshot of the values in ascending order.
+     *
+     * <p>It splits the tree at its subtrees without copying any values, and every part knows its exact size,
+     * so a parallel stream over the set divides the work evenly between threads.</p>
+     *
+     * @return A spliterator over the values.
+     */
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return PersistentTree.spliterator(root.get());
+    }
+
+    /**
+     * Displays a snapshot of the values in ascending order.
+     */
+    @Override
+    public void traverse() {
+        System.out.print("Concurrent Tree In-order Traversal: ");
+        for (int value : toArray()) {
+            System.out.print(value + " ");
+        }
+        System.out.println();
+    }
+
+    /**
+     * Writes the visual representation of a snapshot of the tree.
+     *
+     * <p>The layout is the same as {@link AVLTree}'s. The root is loaded once, so the whole representation
+     * describes one state of the set even while other threads keep writing.</p>
+     *
+     * @param out The destination the representation is streamed into.
+     * @param viewport The rows and levels of the tree to render.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    @Override
+    public void writeVisualRepresentation(Appendable out, Viewport viewport) throws IOException {
+        PersistentTree.write(out, root.get(), viewport);
+    }
+}
@@ -0,0 +1,112 @@
+package dataStructures;
+
+import java.io.PrintStream;
+
+/**
+ * An event sink that prints a human-readable message for every event.
+ *
+ * <p>This is the default sink of every data structure, and produces the messages shown by the
+ * interactive interface, such as "Added node with value: 5" or "Stack is empty. Cannot pop.".</p>
+ */
+public class ConsoleEventSink implements EventSink {
+    /**
+     * A sink that prints to whatever {@link System#out} is at the time of each event.
+     */
+    public static final ConsoleEventSink SYSTEM_OUT = new ConsoleEventSink(null);
+
+    private final PrintStream out;
+
+    /**
+     * Constructs a ConsoleEventSink that prints to the specified stream.
+     *
+     * @param out The stream to print to, or null to always use the current {@link System#out}.
+     */
+    public ConsoleEventSink(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void onEvent(DataStructure source, Operation operation, int value, Outcome outcome) {
+        String message = describe(source, operation, value, outcome);
+        if (message != null) {
+            (out != null ? out : System.out).println(message);
+        }
+    }
+
+    @Override
+    public void onEdgeEvent(DataStructure source, Operation operation, int from, int to, Outcome outcome) {
+        (out != null ? out : System.out).println(describeEdge(source, operation, from, to, outcome));
+    }
+
+    /**
+     * Builds the message printed for an event.
+     *
+     * @return The message, or null if the event is not worth printing.
+     */
+    private static String describe(DataStructure source, Operation operation, int value, Outcome outcome) {
+        String name = source.getName();
+        switch (outcome) {
+            case SUCCESS:
+                return describeSuccess(operation, value);
+            case NOT_FOUND:
+                return "Node with value " + value + " not found in the " + name + ".";
+            case DUPLICATE:
+                return "Node with value " + value + " already exists in the " + name + ".";
+            case EMPTY:
+                return Character.toUpperCase(name.charAt(0)) + name.substring(1) + " is empty. Cannot "
+                        + describeEmpty(operation) + ".";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Builds the message printed for an edge event.
+     */
+    private static String describeEdge(DataStructure source, Operation operation, int from, int to, Outcome outcome) {
+        String edge = from + " -> " + to;
+        boolean adding = operation == Operation.ADD_EDGE;
+        switch (outcome) {
+            case SUCCESS:
+                return (adding ? "Added edge: " : "Removed edge: ") + edge;
+            case DUPLICATE:
+                return "Edge " + edge + " already exists in the " + source.getName() + ".";
+            default:
+                return adding
+                        ? "Cannot add edge " + edge + ": both vertices must be in the " + source.getName() + "."
+                        : "Edge " + edge + " not found in the " + source.getName() + ".";
+        }
+    }
+
+    private static String describeSuccess(Operation operation, int value) {
+        switch (operation) {
+            case ADD:
+                return "Added node with value: " + value;
+            case REMOVE:
+                return "Removed node with value: " + value;
+            case PUSH:
+                return "Pushed element onto the stack: " + value;
+            case POP:
+                return "Popped element from the stack: " + value;
+            case ENQUEUE:
+                return "Enqueued element: " + value;
+            case DEQUEUE:
+                return "Dequeued element: " + value;
+            default:
+                return null;
+        }
+    }
+
+    private static String describeEmpty(Operation operation) {
+        switch (operation) {
+            case POP:
+                return "pop";
+            case PEEK:
+                return "peak";
+            case DEQUEUE:
+                return "dequeue";
+            default:
+                return "remove node";
+        }
+    }
+}
@@ -1,9 +1,273 @@
 package dataStructures;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
 public abstract class DataStructure {
+    private long modificationCount;
+    private EventSink eventSink = ConsoleEventSink.SYSTEM_OUT;
+
     public abstract void addNode(int value);
     public abstract void removeNode(int value);
     public abstract void traverse();
 
-    public abstract String getVisualRepresentation();
+    /**
+     * Gets the name of the data structure as used in messages, for example "linked list".
+     *
+     * @return The lower-case name of the data structure.
+     */
+    public abstract String getName();
+
+    /**
+     * Gets the number of values in the data structure, or of vertices in a graph.
+     *
+     * @return The number of values.
+     */
+    public abstract int size();
+
+    /**
+     * Gets the sink that operations on this data structure are reported to.
+     *
+     * @return The event sink.
+     */
+    public EventSink getEventSink() {
+        return eventSink;
+    }
+
+    /**
+     * Sets the sink that operations on this data structure are reported to.
+     *
+     * @param eventSink The event sink, for example {@link NoOpEventSink#INSTANCE} to report nothing.
+     */
+    public void setEventSink(EventSink eventSink) {
+        this.eventSink = eventSink;
+    }
+
+    /**
+     * Reports an operation and its outcome to the event sink.
+     *
+     * @param operation The operation.
+     * @param value The value the operation added, removed or returned.
+     * @param outcome The result of the operation.
+     */
+    protected void emit(Operation operation, int value, Outcome outcome) {
+        eventSink.onEvent(this, operation, value, outcome);
+    }
+
+    /**
+     * Reports an operation on an edge and its outcome to the event sink.
+     *
+     * @param operation The operation.
+     * @param from The value of the vertex the edge leaves.
+     * @param to The value of the vertex the edge enters.
+     * @param outcome The result of the operation.
+     */
+    protected void emitEdge(Operation operation, int from, int to, Outcome outcome) {
+        eventSink.onEdgeEvent(this, operation, from, to, outcome);
+    }
+
+    /**
+     * Gets the number of times the contents of the data structure have changed.
+     *
+     * <p>The count is bumped by every operation that actually modifies the structure, so two equal
+     * counts taken from the same instance guarantee that its visual representation is unchanged.</p>
+     *
+     * @return The modification count.
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Records that the contents of the data structure have changed.
+     */
+    protected void markModified() {
+        modificationCount++;
+    }
+
+    /**
+     * Adds many values at once, as if {@link #addNode(int)} had been called for each of them in order.
+     *
+     * <p>No events are reported, so loading millions of values does not print a line each, and the
+     * modification count is bumped at least once if anything was added. The default adds the values one by one
+     * with the event sink switched off; data structures that can be built in a single pass override it.</p>
+     *
+     * @param values The values to add, which are not modified.
+     */
+    public void bulkLoad(int[] values) {
+        EventSink sink = eventSink;
+        eventSink = NoOpEventSink.INSTANCE;
+        try {
+            for (int value : values) {
+                addNode(value);
+            }
+        } finally {
+            eventSink = sink;
+        }
+    }
+
+    /**
+     * Gets a lazy iterator over the values of the data structure.
+     *
+     * <p>Lists are walked from head to tail, stacks from top to bottom, queues from front to back, trees in
+     * ascending order, arrays by index and graphs by vertex in the order the vertices were added. Nothing is
+     * copied up front. Data structures whose nodes are never changed in place walk the version current when the
+     * iterator was created and are unaffected by later changes; the others throw
+     * {@link java.util.ConcurrentModificationException} on a best-effort basis if they are changed during the
+     * walk.</p>
+     *
+     * @return An iterator over the values.
+     */
+    public abstract PrimitiveIterator.OfInt iterator();
+
+    /**
+     * Gets a lazy spliterator over the values of the data structure, in the same order as {@link #iterator()}.
+     *
+     * <p>The default splits by copying batches of values out of the iterator. Data structures that can split
+     * without walking, such as trees and arrays, override it so that parallel streams divide the work evenly.</p>
+     *
+     * @return A spliterator over the values.
+     */
+    public Spliterator.OfInt spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED);
+    }
+
+    /**
+     * Gets a lazy stream of the values of the data structure.
+     *
+     * @return A sequential stream of the values; call {@code parallel()} on it to reduce on every core.
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    /**
+     * Writes the part of the visual representation covered by a viewport to the given output in a single pass.
+     *
+     * <p>Implementations append directly to {@code out} and must not build intermediate strings per element.
+     * Hidden elements are summarised by markers, and the work done is bounded by the viewport rather than by
+     * the size of the data structure wherever the structure allows it.</p>
+     *
+     * @param out The destination the representation is streamed into.
+     * @param viewport The part of the data structure to render.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    public abstract void writeVisualRepresentation(Appendable out, Viewport viewport) throws IOException;
+
+    /**
+     * Writes the complete visual representation of the data structure to the given output.
+     *
+     * @param out The destination the representation is streamed into.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    public void writeVisualRepresentation(Appendable out) throws IOException {
+        writeVisualRepresentation(out, Viewport.FULL);
+    }
+
+    /**
+     * Gets the visual representation of the data structure as a string.
+     *
+     * @return The visual representation of the data structure.
+     */
+    public String getVisualRepresentation() {
+        StringBuilder visualRepresentation = new StringBuilder();
+        try {
+            writeVisualRepresentation(visualRepresentation);
+        } catch (IOException e) {
+            // StringBuilder never throws, but Appendable declares it
+            throw new UncheckedIOException(e);
+        }
+        return visualRepresentation.toString();
+    }
+
+    /**
+     * Writes the contents of the data structure as a flat run of ints.
+     *
+     * <p>Implementations call {@link Snapshot.Target#open(int, long)} exactly once, with the number of elements
+     * and the number of ints that follow, and then write that many ints to the returned buffer. Data structures
+     * that can be saved override this together with {@link #readSnapshot(IntBuffer, int)}.</p>
+     *
+     * @param target Where the snapshot is written.
+     * @throws IOException If opening the target fails.
+     * @throws UnsupportedOperationException If the data structure cannot be saved.
+     */
+    void writeSnapshot(Snapshot.Target target) throws IOException {
+        throw new UnsupportedOperationException("A " + getName() + " cannot be saved.");
+    }
+
+    /**
+     * Fills this empty data structure from a payload written by {@link #writeSnapshot(Snapshot.Target)}.
+     *
+     * <p>No events are reported; the modification count is bumped once.</p>
+     *
+     * @param in The buffer to read the payload from.
+     * @param size The number of elements recorded in the header.
+     */
+    void readSnapshot(IntBuffer in, int size) {
+        throw new UnsupportedOperationException("A " + getName() + " cannot be loaded.");
+    }
+
+    /**
+     * Merges the values of a search tree with values to be added to it, for trees that bulk load by rebuilding.
+     *
+     * @param ascending The values already in the tree, in strictly ascending order.
+     * @param count The number of values {@code ascending} yields.
+     * @param values The values to add, in any order and possibly repeated; they are not modified.
+     * @return Every value of either, once each, in ascending order.
+     */
+    static int[] sortedUnion(PrimitiveIterator.OfInt ascending, int count, int[] values) {
+        int[] additions = values.clone();
+        Arrays.sort(additions);
+        int[] union = new int[count + additions.length];
+        int length = 0;
+        int added = 0;
+        boolean hasExisting = ascending.hasNext();
+        int existing = hasExisting ? ascending.nextInt() : 0;
+        while (hasExisting || added < additions.length) {
+            int value;
+            if (hasExisting && (added == additions.length || existing <= additions[added])) {
+                value = existing;
+                hasExisting = ascending.hasNext();
+                if (hasExisting) {
+                    existing = ascending.nextInt();
+                }
+            } else {
+                value = additions[added++];
+            }
+            if (length == 0 || union[length - 1] != value) {
+                union[length++] = value;
+            }
+        }
+        return length == union.length ? union : Arrays.copyOf(union, length);
+    }
+
+    /**
+     * Appends the decimal form of a value without allocating an intermediate string.
+     *
+     * @param out The destination to append to.
+     * @param value The value to append.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    protected static void appendValue(Appendable out, int value) throws IOException {
+        long remaining = value;
+        if (remaining < 0) {
+            out.append('-');
+            remaining = -remaining;
+        }
+
+        long divisor = 1;
+        while (divisor * 10 <= remaining) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + (remaining / divisor) % 10));
+        }
+    }
 }
@@ -1,4 +1,1022 @@
 package dataStructures;
 
-public class DirectedGraph {
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Implementation of a directed graph stored in compressed sparse row (CSR) form.
+ *
+ * <p>Vertices are identified by their int value and kept in slots numbered in insertion order. The
+ * out-edges of every slot are a sorted run of target slots in one shared {@code int[]}, found through an
+ * {@code int[]} of row offsets, so a graph with millions of edges costs a few bytes per edge and no object
+ * per edge or vertex. New edges go to a pending buffer and removed vertices are only marked; both are
+ * folded into the rows by {@link #compact()}, which every query runs first and which reclaims the slots of
+ * removed vertices once they are the majority. Parallel edges are not kept: adding an edge that is already in
+ * the rows or in the pending buffer is rejected, the latter found through a small hash set of the pending
+ * edges.</p>
+ */
+public class DirectedGraph extends DataStructure {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Levels with fewer vertices than this are expanded on the calling thread even by a parallel search.
+     */
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    /**
+     * The number of frontier vertices a single fork/join task expands without splitting further.
+     */
+    private static final int TASK_SIZE = 256;
+
+    /**
+     * The number of discovered vertices a task collects before copying them to the next frontier.
+     */
+    private static final int TASK_BUFFER_SIZE = 512;
+
+    // Vertices by slot
+    private int[] vertexValues = new int[INITIAL_CAPACITY];
+    private boolean[] removed = new boolean[INITIAL_CAPACITY];
+    private int[] outDegrees = new int[INITIAL_CAPACITY];
+    private int[] inDegrees = new int[INITIAL_CAPACITY];
+    private int slotCount;
+    private int vertexCount;
+
+    // Open-addressing index from vertex value to slot + 1, where 0 marks a free bucket
+    private int[] indexKeys = new int[INITIAL_CAPACITY * 2];
+    private int[] indexSlots = new int[INITIAL_CAPACITY * 2];
+
+    // The row of slot s is targets[offsets[s], offsets[s] + outDegrees[s]); slots added since the last
+    // compaction have no offset yet, but also no out-edges in the rows
+    private int[] offsets = new int[1];
+    private int[] targets = new int[0];
+    private int edgeCount;
+
+    // Edges added since the last compaction, as source and target slots
+    private int[] pendingSources = new int[INITIAL_CAPACITY];
+    private int[] pendingTargets = new int[INITIAL_CAPACITY];
+    private int pendingCount;
+
+    // Open-addressing set of the pending edges, as (source << 32 | target) + 1, where 0 marks a free bucket
+    private long[] pendingKeys = new long[INITIAL_CAPACITY * 2];
+
+    // Whether the rows may still hold edges into removed vertices
+    private boolean stale;
+
+    @Override
+    public String getName() {
+        return "directed graph";
+    }
+
+    /**
+     * Adds a vertex with the specified value to the graph.
+     *
+     * <p>Values that are already vertices are reported as {@link Outcome#DUPLICATE}.</p>
+     *
+     * @param value The value of the vertex to be added.
+     */
+    @Override
+    public void addNode(int value) {
+        int slot = lookup(value);
+        if (slot >= 0 && !removed[slot]) {
+            emit(Operation.ADD, value, Outcome.DUPLICATE);
+            return;
+        }
+
+        if (slot >= 0) {
+            // Drop the edges the vertex had before it was removed, so they do not come back with it; the
+            // compaction may reclaim its slot, in which case it gets a new one
+            compact();
+            slot = lookup(value);
+        }
+        if (slot >= 0) {
+            removed[slot] = false;
+        } else {
+            newSlot(value);
+        }
+        vertexCount++;
+        markModified();
+        emit(Operation.ADD, value, Outcome.SUCCESS);
+    }
+
+    /**
+     * Removes the vertex with the specified value, together with every edge entering or leaving it.
+     *
+     * <p>The vertex is only marked as removed; its edges are dropped by the next compaction.</p>
+     *
+     * @param value The value of the vertex to be removed.
+     */
+    @Override
+    public void removeNode(int value) {
+        if (vertexCount == 0) {
+            emit(Operation.REMOVE, value, Outcome.EMPTY);
+            return;
+        }
+
+        int slot = slotOf(value);
+        if (slot < 0) {
+            emit(Operation.REMOVE, value, Outcome.NOT_FOUND);
+            return;
+        }
+
+        removed[slot] = true;
+        vertexCount--;
+        stale = true;
+        markModified();
+        emit(Operation.REMOVE, value, Outcome.SUCCESS);
+    }
+
+    /**
+     * Adds an edge from one vertex to another.
+     *
+     * <p>The edge is appended to the pending buffer in O(1). Both vertices must already be in the graph,
+     * otherwise the edge is reported as {@link Outcome#NOT_FOUND}, and an edge that is already in the graph,
+     * compacted or still pending, is reported as {@link Outcome#DUPLICATE}.</p>
+     *
+     * @param from The value of the vertex the edge leaves.
+     * @param to The value of the vertex the edge enters.
+     */
+    public void addEdge(int from, int to) {
+        int source = slotOf(from);
+        int target = slotOf(to);
+        if (source < 0 || target < 0) {
+            emitEdge(Operation.ADD_EDGE, from, to, Outcome.NOT_FOUND);
+            return;
+        }
+        if (findEdge(source, target) >= 0 || !addPendingKey(source, target)) {
+            emitEdge(Operation.ADD_EDGE, from, to, Outcome.DUPLICATE);
+            return;
+        }
+
+        if (pendingCount == pendingSources.length) {
+            pendingSources = Arrays.copyOf(pendingSources, pendingCount * 2);
+            pendingTargets = Arrays.copyOf(pendingTargets, pendingCount * 2);
+        }
+        pendingSources[pendingCount] = source;
+        pendingTargets[pendingCount] = target;
+        pendingCount++;
+        markModified();
+        emitEdge(Operation.ADD_EDGE, from, to, Outcome.SUCCESS);
+    }
+
+    /**
+     * Removes the edge from one vertex to another.
+     *
+     * <p>The edge is found by a binary search of its row, and the rest of the row is shifted down over it.</p>
+     *
+     * @param from The value of the vertex the edge leaves.
+     * @param to The value of the vertex the edge enters.
+     */
+    public void removeEdge(int from, int to) {
+        compact();
+        int source = slotOf(from);
+        int target = slotOf(to);
+        int position = source < 0 || target < 0 ? -1 : findEdge(source, target);
+        if (position < 0) {
+            emitEdge(Operation.REMOVE_EDGE, from, to, Outcome.NOT_FOUND);
+            return;
+        }
+
+        int rowEnd = offsets[source] + outDegrees[source];
+        System.arraycopy(targets, position + 1, targets, position, rowEnd - position - 1);
+        outDegrees[source]--;
+        inDegrees[target]--;
+        edgeCount--;
+        markModified();
+        emitEdge(Operation.REMOVE_EDGE, from, to, Outcome.SUCCESS);
+    }
+
+    /**
+     * Checks whether a vertex is in the graph.
+     *
+     * @param value The value of the vertex.
+     * @return True if the graph contains the vertex.
+     */
+    public boolean containsVertex(int value) {
+        return slotOf(value) >= 0;
+    }
+
+    /**
+     * Checks whether an edge is in the graph.
+     *
+     * @param from The value of the vertex the edge leaves.
+     * @param to The value of the vertex the edge enters.
+     * @return True if the graph contains the edge.
+     */
+    public boolean containsEdge(int from, int to) {
+        compact();
+        int source = slotOf(from);
+        int target = slotOf(to);
+        return source >= 0 && target >= 0 && findEdge(source, target) >= 0;
+    }
+
+    /**
+     * Gets the number of vertices in the graph.
+     *
+     * @return The number of vertices.
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Gets the number of vertices in the graph, the same as {@link #getVertexCount()}.
+     *
+     * @return The number of vertices.
+     */
+    @Override
+    public int size() {
+        return vertexCount;
+    }
+
+    /**
+     * Gets the number of edges in the graph.
+     *
+     * @return The number of edges.
+     */
+    public int getEdgeCount() {
+        compact();
+        return edgeCount;
+    }
+
+    /**
+     * Gets the vertices of the graph.
+     *
+     * @return The values of the vertices, in the order they were added.
+     */
+    public int[] getVertices() {
+        int[] vertices = new int[vertexCount];
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (!removed[slot]) {
+                vertices[count++] = vertexValues[slot];
+            }
+        }
+        return vertices;
+    }
+
+    /**
+     * Gets the number of edges leaving a vertex.
+     *
+     * @param value The value of the vertex.
+     * @return The out-degree, or -1 if the vertex is not in the graph.
+     */
+    public int outDegree(int value) {
+        compact();
+        int slot = slotOf(value);
+        return slot < 0 ? -1 : outDegrees[slot];
+    }
+
+    /**
+     * Gets the number of edges entering a vertex.
+     *
+     * @param value The value of the vertex.
+     * @return The in-degree, or -1 if the vertex is not in the graph.
+     */
+    public int inDegree(int value) {
+        compact();
+        int slot = slotOf(value);
+        return slot < 0 ? -1 : inDegrees[slot];
+    }
+
+    /**
+     * Lists the vertices reachable from a vertex in breadth-first order.
+     *
+     * <p>The out-edges of each vertex are followed in the order the vertices were added to the graph.</p>
+     *
+     * @param start The value of the vertex to start from.
+     * @return The values of the reachable vertices, starting with {@code start}, or an empty array if
+     *         the start vertex is not in the graph.
+     */
+    public int[] breadthFirst(int start) {
+        return traverseFrom(start, false);
+    }
+
+    /**
+     * Lists the vertices reachable from a vertex in depth-first pre-order.
+     *
+     * <p>The search keeps its own stack, so it does not overflow on long paths.</p>
+     *
+     * @param start The value of the vertex to start from.
+     * @return The values of the reachable vertices, starting with {@code start}, or an empty array if
+     *         the start vertex is not in the graph.
+     */
+    public int[] depthFirst(int start) {
+        return traverseFrom(start, true);
+    }
+
+    /**
+     * Searches the graph breadth-first, one level at a time, on the calling thread.
+     *
+     * @param start The value of the vertex to start from.
+     * @return The reached vertices grouped by level, with their distances and parents.
+     */
+    public BreadthFirstLevels breadthFirstLevels(int start) {
+        return breadthFirstLevels(start, null);
+    }
+
+    /**
+     * Searches the graph breadth-first, one level at a time, expanding large levels in parallel.
+     *
+     * <p>The vertices of the current level, the frontier, are split into chunks that the pool expands
+     * concurrently. A vertex is claimed by setting its bit in an atomic visited bitset, so exactly one task
+     * records its parent and appends it to the next frontier. Tasks collect what they discover in small local
+     * buffers and reserve room for a whole buffer in the shared frontier array with a single atomic add.
+     * Levels with fewer than {@value #PARALLEL_THRESHOLD} vertices are expanded on the calling thread, where
+     * forking would cost more than it saves. The graph must not be modified while the search runs.</p>
+     *
+     * @param start The value of the vertex to start from.
+     * @param pool The pool to expand the levels in, or null to search on the calling thread.
+     * @return The reached vertices grouped by level, with their distances and parents.
+     */
+    public BreadthFirstLevels breadthFirstLevels(int start, ForkJoinPool pool) {
+        int parallelism = pool == null ? 1 : pool.getParallelism();
+        compact();
+        int startSlot = slotOf(start);
+        if (startSlot < 0) {
+            return new BreadthFirstLevels(start, new int[0], new int[0], new int[0], new int[1], parallelism);
+        }
+
+        int[] order = new int[vertexCount];
+        int[] parentSlots = new int[slotCount];
+        AtomicLongArray visited = new AtomicLongArray((slotCount + 63) >>> 6);
+        int[] levelOffsets = new int[INITIAL_CAPACITY];
+        int levelCount = 0;
+
+        claim(visited, startSlot);
+        parentSlots[startSlot] = startSlot;
+        order[0] = startSlot;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            if (levelCount + 1 == levelOffsets.length) {
+                levelOffsets = Arrays.copyOf(levelOffsets, levelOffsets.length * 2);
+            }
+            levelOffsets[levelCount++] = head;
+
+            int next;
+            if (pool == null || tail - head < PARALLEL_THRESHOLD) {
+                next = expandLevel(head, tail, visited, parentSlots, order, tail);
+            } else {
+                AtomicInteger nextTail = new AtomicInteger(tail);
+                pool.invoke(new FrontierTask(this, head, tail, visited, parentSlots, order, nextTail));
+                next = nextTail.get();
+            }
+            // Tasks append in whatever order they finish, so order each level by slot to make the result repeatable
+            Arrays.sort(order, tail, next);
+            head = tail;
+            tail = next;
+        }
+        levelOffsets[levelCount] = tail;
+
+        int[] vertices = new int[tail];
+        int[] distances = new int[tail];
+        int[] parents = new int[tail];
+        for (int level = 0; level < levelCount; level++) {
+            for (int i = levelOffsets[level]; i < levelOffsets[level + 1]; i++) {
+                vertices[i] = vertexValues[order[i]];
+                distances[i] = level;
+                parents[i] = vertexValues[parentSlots[order[i]]];
+            }
+        }
+        return new BreadthFirstLevels(start, vertices, distances, parents, Arrays.copyOf(levelOffsets, levelCount + 1),
+                parallelism);
+    }
+
+    /**
+     * Expands the frontier {@code order[head, tail)} on the calling thread.
+     *
+     * @return The end of the next frontier, which is appended to {@code order} from {@code next}.
+     */
+    private int expandLevel(int head, int tail, AtomicLongArray visited, int[] parentSlots, int[] order, int next) {
+        for (int i = head; i < tail; i++) {
+            int source = order[i];
+            for (int position = rowStart(source), end = position + outDegrees[source]; position < end; position++) {
+                int target = targets[position];
+                if (claim(visited, target)) {
+                    parentSlots[target] = source;
+                    order[next++] = target;
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Sets the visited bit of a slot.
+     *
+     * @return True if this call set the bit, false if it was already set.
+     */
+    private static boolean claim(AtomicLongArray visited, int slot) {
+        int word = slot >>> 6;
+        long bit = 1L << slot;
+        long current = visited.get(word);
+        while ((current & bit) == 0) {
+            if (visited.compareAndSet(word, current, current | bit)) {
+                return true;
+            }
+            current = visited.get(word);
+        }
+        return false;
+    }
+
+    /**
+     * Expands part of a frontier, splitting it in half until it is small enough to expand directly.
+     */
+    private static final class FrontierTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final DirectedGraph graph;
+        private final int from;
+        private final int to;
+        private final AtomicLongArray visited;
+        private final int[] parentSlots;
+        private final int[] order;
+        private final AtomicInteger nextTail;
+
+        FrontierTask(DirectedGraph graph, int from, int to, AtomicLongArray visited, int[] parentSlots, int[] order,
+                     AtomicInteger nextTail) {
+            this.graph = graph;
+            this.from = from;
+            this.to = to;
+            this.visited = visited;
+            this.parentSlots = parentSlots;
+            this.order = order;
+            this.nextTail = nextTail;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TASK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new FrontierTask(graph, from, middle, visited, parentSlots, order, nextTail),
+                        new FrontierTask(graph, middle, to, visited, parentSlots, order, nextTail));
+                return;
+            }
+
+            int[] targets = graph.targets;
+            int[] outDegrees = graph.outDegrees;
+            int[] buffer = new int[TASK_BUFFER_SIZE];
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                int source = order[i];
+                for (int position = graph.rowStart(source), end = position + outDegrees[source]; position < end; position++) {
+                    int target = targets[position];
+                    if (claim(visited, target)) {
+                        parentSlots[target] = source;
+                        buffer[count++] = target;
+                        if (count == buffer.length) {
+                            flush(buffer, count);
+                            count = 0;
+                        }
+                    }
+                }
+            }
+            flush(buffer, count);
+        }
+
+        private void flush(int[] buffer, int count) {
+            if (count > 0) {
+                System.arraycopy(buffer, 0, order, nextTail.getAndAdd(count), count);
+            }
+        }
+    }
+
+    private int[] traverseFrom(int start, boolean depthFirst) {
+        compact();
+        int slot = slotOf(start);
+        if (slot < 0) {
+            return new int[0];
+        }
+
+        int[] order = new int[vertexCount];
+        long[] visited = new long[(slotCount + 63) >>> 6];
+        int count = depthFirst ? depthFirst(slot, visited, order, 0) : breadthFirst(slot, visited, order, 0);
+        return toValues(order, count);
+    }
+
+    /**
+     * Visits every vertex reachable from a slot in breadth-first order, using the order array as the queue.
+     *
+     * @return The number of visited slots in {@code order}.
+     */
+    private int breadthFirst(int slot, long[] visited, int[] order, int count) {
+        int head = count;
+        visited[slot >>> 6] |= 1L << slot;
+        order[count++] = slot;
+        while (head < count) {
+            int source = order[head++];
+            for (int position = rowStart(source), end = position + outDegrees[source]; position < end; position++) {
+                int target = targets[position];
+                if ((visited[target >>> 6] & (1L << target)) == 0) {
+                    visited[target >>> 6] |= 1L << target;
+                    order[count++] = target;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Visits every vertex reachable from a slot in depth-first pre-order.
+     *
+     * @return The number of visited slots in {@code order}.
+     */
+    private int depthFirst(int slot, long[] visited, int[] order, int count) {
+        // Each vertex is pushed at most once, so the stack never holds more than every vertex
+        int[] stack = new int[vertexCount];
+        int[] cursors = new int[vertexCount];
+        int depth = 0;
+
+        visited[slot >>> 6] |= 1L << slot;
+        order[count++] = slot;
+        stack[depth] = slot;
+        cursors[depth++] = rowStart(slot);
+        while (depth > 0) {
+            int source = stack[depth - 1];
+            if (cursors[depth - 1] == rowStart(source) + outDegrees[source]) {
+                depth--;
+                continue;
+            }
+
+            int target = targets[cursors[depth - 1]++];
+            if ((visited[target >>> 6] & (1L << target)) == 0) {
+                visited[target >>> 6] |= 1L << target;
+                order[count++] = target;
+                stack[depth] = target;
+                cursors[depth++] = rowStart(target);
+            }
+        }
+        return count;
+    }
+
+    private int[] toValues(int[] slots, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = vertexValues[slots[i]];
+        }
+        return values;
+    }
+
+    /**
+     * Folds the pending edges and removed vertices into the rows.
+     *
+     * <p>The rows are rebuilt with a counting sort by source slot: the surviving edges of each row and the
+     * pending edges are counted, the counts become the new offsets, and the edges are copied into place.
+     * Each row is then sorted and repeated edges are squeezed out, and the in-degrees are recounted. The
+     * whole pass is O(V + E log d), where d is the largest out-degree, and does nothing if there is
+     * nothing to fold in. It does not change the graph as seen through its other methods.</p>
+     *
+     * <p>Once removed vertices hold more than half of the slots, the remaining vertices are renumbered into
+     * consecutive slots in the same order, so searches and renders, which size their arrays by slot, stay
+     * proportional to the vertices in the graph rather than to every vertex it ever had. A removed vertex
+     * whose slot was reclaimed goes to the end of the order if it is added again.</p>
+     */
+    public void compact() {
+        if (pendingCount == 0 && !stale) {
+            return;
+        }
+
+        int slots = slotCount;
+        int[] newOffsets = new int[slots + 1];
+        for (int source = 0; source < slots; source++) {
+            if (removed[source]) {
+                continue;
+            }
+            for (int position = rowStart(source), end = position + outDegrees[source]; position < end; position++) {
+                if (!removed[targets[position]]) {
+                    newOffsets[source + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < pendingCount; i++) {
+            if (!removed[pendingSources[i]] && !removed[pendingTargets[i]]) {
+                newOffsets[pendingSources[i] + 1]++;
+            }
+        }
+        for (int source = 0; source < slots; source++) {
+            newOffsets[source + 1] += newOffsets[source];
+        }
+
+        // Fill each row, using the out-degrees as the number of edges placed so far
+        int[] newTargets = new int[newOffsets[slots]];
+        for (int source = 0; source < slots; source++) {
+            int placed = 0;
+            if (!removed[source]) {
+                for (int position = rowStart(source), end = position + outDegrees[source]; position < end; position++) {
+                    if (!removed[targets[position]]) {
+                        newTargets[newOffsets[source] + placed++] = targets[position];
+                    }
+                }
+            }
+            outDegrees[source] = placed;
+        }
+        for (int i = 0; i < pendingCount; i++) {
+            int source = pendingSources[i];
+            int target = pendingTargets[i];
+            if (!removed[source] && !removed[target]) {
+                newTargets[newOffsets[source] + outDegrees[source]++] = target;
+            }
+        }
+
+        // Sort each row and squeeze out repeated edges, moving the rows down over the gaps
+        Arrays.fill(inDegrees, 0, slots, 0);
+        int written = 0;
+        int rowStart = 0;
+        for (int source = 0; source < slots; source++) {
+            int rowEnd = newOffsets[source + 1];
+            Arrays.sort(newTargets, rowStart, rowEnd);
+            newOffsets[source] = written;
+            for (int position = rowStart; position < rowEnd; position++) {
+                int target = newTargets[position];
+                if (position == rowStart || target != newTargets[position - 1]) {
+                    newTargets[written++] = target;
+                    inDegrees[target]++;
+                }
+            }
+            outDegrees[source] = written - newOffsets[source];
+            rowStart = rowEnd;
+        }
+        newOffsets[slots] = written;
+
+        offsets = newOffsets;
+        targets = written == newTargets.length ? newTargets : Arrays.copyOf(newTargets, written);
+        edgeCount = written;
+        pendingCount = 0;
+        if (pendingKeys.length > INITIAL_CAPACITY * 2) {
+            pendingKeys = new long[INITIAL_CAPACITY * 2];
+        } else {
+            Arrays.fill(pendingKeys, 0);
+        }
+        stale = false;
+
+        if (slots > INITIAL_CAPACITY && slots - vertexCount > slots / 2) {
+            renumberSlots();
+        }
+    }
+
+    /**
+     * Moves the remaining vertices into consecutive slots, in the same order, and drops the slots of removed
+     * vertices. It runs at the end of a compaction, when no row holds an edge into a removed vertex and the
+     * rows of removed vertices are empty, so every row stays where it is.
+     */
+    private void renumberSlots() {
+        int[] newSlots = new int[slotCount];
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (removed[slot]) {
+                continue;
+            }
+            newSlots[slot] = count;
+            vertexValues[count] = vertexValues[slot];
+            outDegrees[count] = outDegrees[slot];
+            inDegrees[count] = inDegrees[slot];
+            offsets[count] = offsets[slot];
+            count++;
+        }
+        for (int position = 0; position < edgeCount; position++) {
+            targets[position] = newSlots[targets[position]];
+        }
+
+        int capacity = Math.max(INITIAL_CAPACITY, count * 2);
+        vertexValues = Arrays.copyOf(vertexValues, capacity);
+        removed = new boolean[capacity];
+        outDegrees = Arrays.copyOf(outDegrees, capacity);
+        inDegrees = Arrays.copyOf(inDegrees, capacity);
+        // Slots added later must start with no edges, as new slots always have
+        Arrays.fill(outDegrees, count, Math.min(capacity, slotCount), 0);
+        Arrays.fill(inDegrees, count, Math.min(capacity, slotCount), 0);
+        offsets = Arrays.copyOf(offsets, count + 1);
+        offsets[count] = edgeCount;
+        slotCount = count;
+        rehash(Math.max(INITIAL_CAPACITY * 2, Integer.highestOneBit(count + 1) << 2));
+    }
+
+    /**
+     * Writes the vertices in the order they were added, then the out-degree and out-edges of each vertex.
+     * Edges refer to vertices by their position in that list.
+     */
+    @Override
+    void writeSnapshot(Snapshot.Target target) throws IOException {
+        compact();
+        IntBuffer out = target.open(vertexCount, 2L * vertexCount + edgeCount);
+
+        int[] indexes = new int[slotCount];
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (!removed[slot]) {
+                indexes[slot] = count++;
+                out.put(vertexValues[slot]);
+            }
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (removed[slot]) {
+                continue;
+            }
+            out.put(outDegrees[slot]);
+            for (int position = rowStart(slot), end = position + outDegrees[slot]; position < end; position++) {
+                out.put(indexes[targets[position]]);
+            }
+        }
+    }
+
+    /**
+     * Fills the rows directly from the saved out-edges, which are already sorted, with no compaction.
+     */
+    @Override
+    void readSnapshot(IntBuffer in, int size) {
+        for (int i = 0; i < size; i++) {
+            int value = in.get();
+            if (lookup(value) >= 0) {
+                throw new IllegalArgumentException("vertex " + value + " appears twice.");
+            }
+            newSlot(value);
+        }
+        vertexCount = size;
+
+        // Everything after the vertices is one degree per vertex and the edges themselves
+        if (in.remaining() < size) {
+            throw new IllegalArgumentException("the out-degrees are missing.");
+        }
+        int[] newOffsets = new int[size + 1];
+        int[] newTargets = new int[in.remaining() - size];
+        int written = 0;
+        for (int slot = 0; slot < size; slot++) {
+            int degree = in.get();
+            if (degree < 0 || degree > newTargets.length - written) {
+                throw new IllegalArgumentException("vertex " + vertexValues[slot] + " has an invalid out-degree.");
+            }
+            newOffsets[slot] = written;
+            for (int i = 0; i < degree; i++) {
+                int target = in.get();
+                if (target < 0 || target >= size || (i > 0 && target <= newTargets[written - 1])) {
+                    throw new IllegalArgumentException("vertex " + vertexValues[slot] + " has invalid edges.");
+                }
+                newTargets[written++] = target;
+                inDegrees[target]++;
+            }
+            outDegrees[slot] = degree;
+        }
+        newOffsets[size] = written;
+
+        offsets = newOffsets;
+        targets = newTargets;
+        edgeCount = written;
+        markModified();
+    }
+
+    /**
+     * Finds an edge in the rows.
+     *
+     * @return The position of the edge in {@code targets}, or -1 if it is not in the rows.
+     */
+    private int findEdge(int source, int target) {
+        if (outDegrees[source] == 0) {
+            return -1;
+        }
+        int start = offsets[source];
+        int position = Arrays.binarySearch(targets, start, start + outDegrees[source], target);
+        return position >= 0 ? position : -1;
+    }
+
+    /**
+     * Adds an edge to the set of pending edges.
+     *
+     * @return False if the edge is already pending.
+     */
+    private boolean addPendingKey(int source, int target) {
+        // Keep the set at most half full, so probe sequences stay short
+        if ((pendingCount + 1) * 2 > pendingKeys.length) {
+            pendingKeys = new long[pendingKeys.length * 2];
+            for (int i = 0; i < pendingCount; i++) {
+                insertPendingKey(pendingSources[i], pendingTargets[i]);
+            }
+        }
+        return insertPendingKey(source, target);
+    }
+
+    private boolean insertPendingKey(int source, int target) {
+        long key = ((long) source << 32 | target) + 1;
+        int mask = pendingKeys.length - 1;
+        for (int bucket = hash(source * 31 + target) & mask; ; bucket = (bucket + 1) & mask) {
+            if (pendingKeys[bucket] == 0) {
+                pendingKeys[bucket] = key;
+                return true;
+            }
+            if (pendingKeys[bucket] == key) {
+                return false;
+            }
+        }
+    }
+
+    private int rowStart(int slot) {
+        return outDegrees[slot] == 0 ? 0 : offsets[slot];
+    }
+
+    /**
+     * Finds the slot of a vertex that is in the graph.
+     *
+     * @return The slot, or -1 if the value is not a vertex.
+     */
+    private int slotOf(int value) {
+        int slot = lookup(value);
+        return slot >= 0 && !removed[slot] ? slot : -1;
+    }
+
+    /**
+     * Finds the slot a value has ever been given, including slots of removed vertices.
+     *
+     * @return The slot, or -1 if the value has never been a vertex.
+     */
+    private int lookup(int value) {
+        int mask = indexKeys.length - 1;
+        for (int bucket = hash(value) & mask; indexSlots[bucket] != 0; bucket = (bucket + 1) & mask) {
+            if (indexKeys[bucket] == value) {
+                return indexSlots[bucket] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private int newSlot(int value) {
+        if (slotCount == vertexValues.length) {
+            int capacity = slotCount * 2;
+            vertexValues = Arrays.copyOf(vertexValues, capacity);
+            removed = Arrays.copyOf(removed, capacity);
+            outDegrees = Arrays.copyOf(outDegrees, capacity);
+            inDegrees = Arrays.copyOf(inDegrees, capacity);
+        }
+        // Keep the index at most half full, so probe sequences stay short
+        if ((slotCount + 1) * 2 > indexKeys.length) {
+            rehash(indexKeys.length * 2);
+        }
+
+        int slot = slotCount++;
+        vertexValues[slot] = value;
+        insertIndex(value, slot);
+        return slot;
+    }
+
+    private void insertIndex(int value, int slot) {
+        int mask = indexKeys.length - 1;
+        int bucket = hash(value) & mask;
+        while (indexSlots[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        indexKeys[bucket] = value;
+        indexSlots[bucket] = slot + 1;
+    }
+
+    private void rehash(int capacity) {
+        indexKeys = new int[capacity];
+        indexSlots = new int[capacity];
+        for (int slot = 0; slot < slotCount; slot++) {
+            insertIndex(vertexValues[slot], slot);
+        }
+    }
+
+    private static int hash(int value) {
+        int hash = value * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Gets a lazy iterator over the values of the vertices in the order they were added.
+     *
+     * @return An iterator that fails if the graph is changed while it is in use.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private final long expectedModificationCount = getModificationCount();
+            private int slot = nextSlot(0);
+
+            @Override
+            public boolean hasNext() {
+                return slot < slotCount;
+            }
+
+            @Override
+            public int nextInt() {
+                if (slot >= slotCount) {
+                    throw new NoSuchElementException();
+                }
+                if (getModificationCount() != expectedModificationCount) {
+                    throw new ConcurrentModificationException();
+                }
+                int value = vertexValues[slot];
+                slot = nextSlot(slot + 1);
+                return value;
+            }
+        };
+    }
+
+    private int nextSlot(int slot) {
+        while (slot < slotCount && removed[slot]) {
+            slot++;
+        }
+        return slot;
+    }
+
+    /**
+     * Gets a spliterator over the values of the vertices in the order they were added, which knows the
+     * number of vertices.
+     *
+     * @return A spliterator over the values.
+     */
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return Spliterators.spliterator(iterator(), vertexCount,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    /**
+     * Displays the vertices of the graph in breadth-first order.
+     *
+     * <p>This method prints every vertex to the console. Each search starts from the earliest added vertex
+     * not yet reached, so vertices that are unreachable from the first one are still printed.</p>
+     */
+    @Override
+    public void traverse() {
+        compact();
+        int[] order = new int[vertexCount];
+        long[] visited = new long[(slotCount + 63) >>> 6];
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (!removed[slot] && (visited[slot >>> 6] & (1L << slot)) == 0) {
+                count = breadthFirst(slot, visited, order, count);
+            }
+        }
+
+        System.out.print("Directed Graph: ");
+        for (int i = 0; i < count; i++) {
+            System.out.print(vertexValues[order[i]] + " ");
+        }
+        System.out.println();
+    }
+
+    /**
+     * Writes the visual representation of the graph as adjacency lists.
+     *
+     * <p>Each vertex gets one row listing the vertices its edges enter, for example {@code 1 -> 2, 3}.
+     * The viewport selects which rows are shown, in the order the vertices were added, and also limits
+     * how many edges of a single row are listed.</p>
+     *
+     * @param out The destination the representation is streamed into.
+     * @param viewport The range of vertices to render.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    @Override
+    public void writeVisualRepresentation(Appendable out, Viewport viewport) throws IOException {
+        compact();
+        if (vertexCount == 0) {
+            out.append("(empty graph)\n");
+            return;
+        }
+
+        int offset = Math.min(viewport.getOffset(), vertexCount);
+        int end = Math.min(viewport.getEnd(), vertexCount);
+        if (offset > 0) {
+            out.append("... (");
+            appendValue(out, offset);
+            out.append(" vertices above)\n");
+        }
+
+        int row = 0;
+        for (int slot = 0; slot < slotCount && row < end; slot++) {
+            if (removed[slot] || row++ < offset) {
+                continue;
+            }
+
+            appendValue(out, vertexValues[slot]);
+            out.append(" ->");
+            int start = rowStart(slot);
+            int shown = Math.min(outDegrees[slot], viewport.getSize());
+            for (int position = start; position < start + shown; position++) {
+                out.append(position == start ? " " : ", ");
+                appendValue(out, vertexValues[targets[position]]);
+            }
+            if (shown < outDegrees[slot]) {
+                out.append(", ... (");
+                appendValue(out, outDegrees[slot] - shown);
+                out.append(" more)");
+            }
+            out.append('\n');
+        }
+
+        if (end < vertexCount) {
+            out.append("... (");
+            appendValue(out, vertexCount - end);
+            out.append(" more vertices)\n");
+        }
+    }
 }
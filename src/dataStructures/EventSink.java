@@ -0,0 +1,34 @@
+package dataStructures;
+
+/**
+ * Receives the operations performed on a data structure and their outcomes.
+ *
+ * <p>Events are passed as primitives and enum constants, so reporting an event allocates nothing
+ * unless the sink itself does. Data structures report to a {@link ConsoleEventSink} by default;
+ * {@link NoOpEventSink} turns reporting off and {@link BufferedEventSink} collects events for later.</p>
+ */
+public interface EventSink {
+    /**
+     * Called after an operation has been performed, or rejected, by a data structure.
+     *
+     * @param source The data structure the operation was performed on.
+     * @param operation The operation.
+     * @param value The value the operation added, removed or returned.
+     * @param outcome The result of the operation.
+     */
+    void onEvent(DataStructure source, Operation operation, int value, Outcome outcome);
+
+    /**
+     * Called after an operation on an edge has been performed, or rejected, by a graph.
+     *
+     * <p>Sinks that are not interested in edges can rely on the default, which ignores the event.</p>
+     *
+     * @param source The data structure the operation was performed on.
+     * @param operation The operation, either {@link Operation#ADD_EDGE} or {@link Operation#REMOVE_EDGE}.
+     * @param from The value of the vertex the edge leaves.
+     * @param to The value of the vertex the edge enters.
+     * @param outcome The result of the operation.
+     */
+    default void onEdgeEvent(DataStructure source, Operation operation, int from, int to, Outcome outcome) {
+    }
+}
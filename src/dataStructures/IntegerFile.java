@@ -0,0 +1,110 @@
+package dataStructures;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads files of decimal integers, for loading data structures with {@link DataStructure#bulkLoad(int[])}.
+ *
+ * <p>A file holds integers in ASCII, each an optional minus sign followed by digits, separated by any mix of
+ * whitespace and commas, so one value per line, space-separated values and CSV rows of numbers are all
+ * accepted. Anything else, and any value outside the range of an int, is an error.</p>
+ *
+ * <p>The file is read through a read-only memory-mapped {@link FileChannel}, in mappings of up to
+ * {@code 1 GiB}, and parsed byte by byte by a small state machine that accumulates each value as it goes. No
+ * strings, {@link java.util.Scanner} or boxed values are created, so reading is limited by the page cache
+ * rather than by parsing.</p>
+ */
+public final class IntegerFile {
+    private static final long MAPPING_BYTES = 1L << 30;
+    private static final long MAX_MAGNITUDE = -(long) Integer.MIN_VALUE;
+
+    private IntegerFile() {
+    }
+
+    /**
+     * Reads every integer in a file, in order.
+     *
+     * @param file The file to read.
+     * @return The integers.
+     * @throws IOException If the file cannot be read, holds something other than integers and separators, holds
+     *         a value outside the range of an int, or holds more values than an array can.
+     */
+    public static int[] read(Path file) throws IOException {
+        int[] values = new int[1024];
+        int count = 0;
+        boolean inValue = false;
+        boolean negative = false;
+        boolean hasDigits = false;
+        long magnitude = 0;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            for (long position = 0; position < length; position += MAPPING_BYTES) {
+                MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAPPING_BYTES, length - position));
+                int limit = mapping.limit();
+                for (int i = 0; i < limit; i++) {
+                    byte b = mapping.get(i);
+                    if (b >= '0' && b <= '9') {
+                        magnitude = magnitude * 10 + (b - '0');
+                        if (magnitude > MAX_MAGNITUDE) {
+                            throw new IOException(file + " has a value out of range at byte " + (position + i) + ".");
+                        }
+                        inValue = true;
+                        hasDigits = true;
+                    } else if (b == '-' && !inValue) {
+                        inValue = true;
+                        negative = true;
+                    } else if (b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == ',') {
+                        if (inValue) {
+                            if (count == values.length) {
+                                values = grow(values, file);
+                            }
+                            values[count++] = finish(file, position + i, negative, hasDigits, magnitude);
+                            inValue = false;
+                            negative = false;
+                            hasDigits = false;
+                            magnitude = 0;
+                        }
+                    } else {
+                        throw new IOException(file + " has an unexpected character at byte " + (position + i) + ".");
+                    }
+                }
+            }
+
+            if (inValue) {
+                if (count == values.length) {
+                    values = grow(values, file);
+                }
+                values[count++] = finish(file, length, negative, hasDigits, magnitude);
+            }
+        } catch (NoSuchFileException e) {
+            throw new IOException(file + " does not exist.", e);
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    private static int finish(Path file, long offset, boolean negative, boolean hasDigits, long magnitude)
+            throws IOException {
+        if (!hasDigits) {
+            throw new IOException(file + " has a minus sign without digits before byte " + offset + ".");
+        }
+        if (!negative && magnitude > Integer.MAX_VALUE) {
+            throw new IOException(file + " has a value out of range before byte " + offset + ".");
+        }
+        return (int) (negative ? -magnitude : magnitude);
+    }
+
+    private static int[] grow(int[] values, Path file) throws IOException {
+        if (values.length == Integer.MAX_VALUE - 8) {
+            throw new IOException(file + " holds too many values.");
+        }
+        return Arrays.copyOf(values, (int) Math.min((long) values.length * 2, Integer.MAX_VALUE - 8));
+    }
+}
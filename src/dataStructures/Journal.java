@@ -0,0 +1,492 @@
+package dataStructures;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An append-only journal of the operations performed on a data structure, from which the data structure can
+ * be rebuilt after the process dies.
+ *
+ * <p>The journal is an {@link EventSink} placed in front of the sink the data structure would otherwise report
+ * to. Every operation that changes the data structure is appended to the journal file as a 12-byte record and
+ * then forwarded; rejected operations are only forwarded. Records are collected in a buffer and written and
+ * forced to disk together once per durability interval (group commit), so one {@code fsync} covers every
+ * operation of the interval and a crash loses at most the last interval's operations. An interval of zero
+ * forces each record to disk before the operation returns.</p>
+ *
+ * <p>The journal builds on a snapshot written by {@link Snapshot}. Compacting it saves the data structure as a
+ * new snapshot and starts an empty journal on top of it, which keeps recovery time and the size of the journal
+ * proportional to the data structure rather than to its history. The journal header records the epoch of the
+ * snapshot it builds on, and the snapshot of epoch {@code e} for the journal {@code name} is
+ * {@code name.e.snapshot}. A new snapshot only takes effect once an empty journal naming it has atomically
+ * replaced the old journal, so a crash part-way through compaction leaves the previous snapshot and journal
+ * intact.</p>
+ *
+ * <p>Recovery maps the journal and replays its records onto the snapshot with events turned off, so it is not
+ * slowed down by printing and runs at the speed of the data structure's own operations.</p>
+ */
+public final class Journal implements EventSink, Closeable {
+    /**
+     * The size the journal may grow to before {@link #compactIfNeeded()} compacts it, unless changed.
+     */
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 64L << 20;
+
+    private static final int MAGIC = 0x4A565344; // "DSVJ" in little-endian byte order
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+    private static final int RECORD_BYTES = 12;
+    private static final int BUFFER_RECORDS = 4096;
+
+    /**
+     * The most records replayed from a single mapping, so that journals larger than 2 GB can be recovered.
+     */
+    private static final int MAPPING_RECORDS = 1 << 24;
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final Path file;
+    private final long durabilityMillis;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private final ScheduledExecutorService flusher;
+    private long compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+
+    private FileChannel channel;
+    private long epoch;
+    private long recordCount;
+    private long replayedCount;
+    private boolean unforced;
+    private boolean stale;
+    private IOException failure;
+    private DataStructure dataStructure;
+    private EventSink delegate = NoOpEventSink.INSTANCE;
+
+    private Journal(Path file, long durabilityMillis) {
+        this.file = file;
+        this.durabilityMillis = durabilityMillis;
+        if (durabilityMillis == 0) {
+            flusher = null;
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::syncInBackground, durabilityMillis, durabilityMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a journal, recovering the data structure it holds if the journal file exists.
+     *
+     * <p>After recovery, {@link #getDataStructure()} returns the rebuilt data structure and new operations on
+     * it are appended to the existing journal. If there is no journal file, nothing is recorded until
+     * {@link #start(DataStructure)} is called.</p>
+     *
+     * @param file The journal file.
+     * @param durabilityMillis The longest time, in milliseconds, an operation may stay in memory before it is
+     *                         forced to disk. Zero forces every operation to disk as it happens.
+     * @return The open journal.
+     * @throws IOException If the journal or its snapshot cannot be read, or is corrupt.
+     */
+    public static Journal open(Path file, long durabilityMillis) throws IOException {
+        if (durabilityMillis < 0) {
+            throw new IllegalArgumentException("The durability interval cannot be negative.");
+        }
+        Journal journal = new Journal(file, durabilityMillis);
+        if (Files.exists(file)) {
+            try {
+                journal.recover();
+            } catch (IOException | RuntimeException e) {
+                journal.close();
+                throw e;
+            }
+        }
+        return journal;
+    }
+
+    private void recover() throws IOException {
+        FileChannel recovered = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long fileSize = recovered.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && recovered.read(header, header.position()) > 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a data structure journal.");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has unsupported journal version " + version + ".");
+            }
+            int type = header.getInt();
+            long recoveredEpoch = header.getLong();
+
+            DataStructure base = Snapshot.load(snapshotOf(recoveredEpoch));
+            if (Snapshot.typeOf(base) != type) {
+                throw new IOException(file + " does not match its snapshot " + snapshotOf(recoveredEpoch) + ".");
+            }
+
+            // A record torn by a crash was never acknowledged, so it is dropped
+            long records = (fileSize - HEADER_BYTES) / RECORD_BYTES;
+            long end = HEADER_BYTES + records * RECORD_BYTES;
+            replay(recovered, records, base);
+            if (end != fileSize) {
+                recovered.truncate(end);
+            }
+            recovered.position(end);
+
+            channel = recovered;
+            epoch = recoveredEpoch;
+            recordCount = records;
+            replayedCount = records;
+            attach(base);
+        } catch (IOException | RuntimeException e) {
+            recovered.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Replays the records of a journal onto a data structure, one mapping at a time.
+     */
+    private void replay(FileChannel source, long records, DataStructure target) throws IOException {
+        EventSink previous = target.getEventSink();
+        target.setEventSink(NoOpEventSink.INSTANCE);
+        try {
+            long replayed = 0;
+            while (replayed < records) {
+                int count = (int) Math.min(records - replayed, MAPPING_RECORDS);
+                IntBuffer mapping = source.map(FileChannel.MapMode.READ_ONLY,
+                                HEADER_BYTES + replayed * RECORD_BYTES, (long) count * RECORD_BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN)
+                        .asIntBuffer();
+                for (int i = 0; i < count; i++) {
+                    if (!apply(target, mapping.get(), mapping.get(), mapping.get())) {
+                        throw new IOException(file + " is corrupt: invalid record " + (replayed + i) + ".");
+                    }
+                }
+                replayed += count;
+            }
+        } finally {
+            target.setEventSink(previous);
+        }
+    }
+
+    /**
+     * Performs the operation of one record.
+     *
+     * @return False if the record does not describe an operation on this data structure.
+     */
+    private static boolean apply(DataStructure target, int operation, int value, int to) {
+        if (operation < 0 || operation >= OPERATIONS.length) {
+            return false;
+        }
+        switch (OPERATIONS[operation]) {
+            case ADD:
+            case PUSH:
+            case ENQUEUE:
+                target.addNode(value);
+                return true;
+            case REMOVE:
+            case POP:
+            case DEQUEUE:
+                target.removeNode(value);
+                return true;
+            case ADD_EDGE:
+            case REMOVE_EDGE:
+                if (!(target instanceof DirectedGraph)) {
+                    return false;
+                }
+                if (OPERATIONS[operation] == Operation.ADD_EDGE) {
+                    ((DirectedGraph) target).addEdge(value, to);
+                } else {
+                    ((DirectedGraph) target).removeEdge(value, to);
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Starts journaling a data structure from scratch, replacing the journal file.
+     *
+     * <p>The data structure is saved as the snapshot of a new epoch and an empty journal for that epoch
+     * replaces the old one, whose snapshot is then deleted. From then on the journal is the event sink of the
+     * data structure, forwarding events to whatever sink the data structure had before. Data structures must
+     * not be modified by other threads while this runs.</p>
+     *
+     * @param newDataStructure The data structure to journal.
+     * @throws IOException If the snapshot or the new journal cannot be written.
+     * @throws IllegalArgumentException If the type of data structure cannot be saved.
+     */
+    public synchronized void start(DataStructure newDataStructure) throws IOException {
+        int type = Snapshot.typeOf(newDataStructure);
+        sync();
+
+        long newEpoch = epoch + 1;
+        Snapshot.save(newDataStructure, snapshotOf(newEpoch));
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(type).putLong(newEpoch).flip();
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            out.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // The open channel still refers to the journal that was just replaced
+        if (channel != null) {
+            channel.close();
+        }
+        channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        channel.position(HEADER_BYTES);
+        Files.deleteIfExists(snapshotOf(epoch));
+
+        epoch = newEpoch;
+        recordCount = 0;
+        stale = false;
+        attach(newDataStructure);
+    }
+
+    /**
+     * Folds the journal into a new snapshot of the journaled data structure.
+     *
+     * @throws IOException If the snapshot or the new journal cannot be written.
+     * @throws IllegalStateException If no data structure is being journaled.
+     */
+    public synchronized void compact() throws IOException {
+        if (dataStructure == null) {
+            throw new IllegalStateException("The journal has not been started.");
+        }
+        start(dataStructure);
+    }
+
+    /**
+     * Compacts the journal if it has grown past the compaction threshold or has been marked stale.
+     *
+     * <p>Callers run this between operations, never while one is in progress.</p>
+     *
+     * @return True if the journal was compacted.
+     * @throws IOException If the snapshot or the new journal cannot be written.
+     */
+    public synchronized boolean compactIfNeeded() throws IOException {
+        if (dataStructure == null || (!stale && recordCount * RECORD_BYTES < compactionThreshold)) {
+            return false;
+        }
+        compact();
+        return true;
+    }
+
+    /**
+     * Records that the journaled data structure has been changed in a way its records cannot describe, such as
+     * restoring an earlier version of it.
+     *
+     * <p>Nothing is written, so this is O(1) however large the data structure is. Records stop being appended,
+     * since they would be replayed onto the wrong contents, and the next {@link #compactIfNeeded()} or
+     * {@link #close()} saves a snapshot of the contents at that point instead. A run of restores therefore costs
+     * one snapshot, taken with the next change. Until then a crash recovers the contents from before the first
+     * restore.</p>
+     */
+    public synchronized void markStale() {
+        if (dataStructure != null) {
+            stale = true;
+        }
+    }
+
+    /**
+     * Sets the size the journal may grow to before {@link #compactIfNeeded()} compacts it.
+     *
+     * @param bytes The threshold in bytes.
+     */
+    public synchronized void setCompactionThreshold(long bytes) {
+        compactionThreshold = bytes;
+    }
+
+    /**
+     * Makes the journal the event sink of a data structure, in front of the sink it had.
+     */
+    private void attach(DataStructure newDataStructure) {
+        if (newDataStructure == dataStructure) {
+            return;
+        }
+        if (dataStructure != null && dataStructure.getEventSink() == this) {
+            dataStructure.setEventSink(delegate);
+        }
+        if (newDataStructure.getEventSink() != this) {
+            delegate = newDataStructure.getEventSink();
+        }
+        newDataStructure.setEventSink(this);
+        dataStructure = newDataStructure;
+    }
+
+    @Override
+    public void onEvent(DataStructure source, Operation operation, int value, Outcome outcome) {
+        if (outcome == Outcome.SUCCESS && operation != Operation.PEEK && source == dataStructure) {
+            append(operation, value, 0);
+        }
+        delegate.onEvent(source, operation, value, outcome);
+    }
+
+    @Override
+    public void onEdgeEvent(DataStructure source, Operation operation, int from, int to, Outcome outcome) {
+        if (outcome == Outcome.SUCCESS && source == dataStructure) {
+            append(operation, from, to);
+        }
+        delegate.onEdgeEvent(source, operation, from, to, outcome);
+    }
+
+    private synchronized void append(Operation operation, int value, int to) {
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+            if (stale) {
+                // The snapshot taken when the journal is next compacted will include this operation
+                return;
+            }
+            if (!buffer.hasRemaining()) {
+                write();
+            }
+            buffer.putInt(operation.ordinal()).putInt(value).putInt(to);
+            recordCount++;
+            if (durabilityMillis == 0) {
+                sync();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to the journal " + file + ".", e);
+        }
+    }
+
+    private void write() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        unforced = true;
+    }
+
+    /**
+     * Writes every buffered record and forces the journal to disk.
+     *
+     * @throws IOException If writing or forcing the journal fails.
+     */
+    public synchronized void sync() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        if (buffer.position() > 0) {
+            write();
+        }
+        if (unforced) {
+            channel.force(false);
+            unforced = false;
+        }
+    }
+
+    private synchronized void syncInBackground() {
+        try {
+            sync();
+        } catch (IOException e) {
+            // Reported by the next operation, which would otherwise be acknowledged but never made durable
+            failure = e;
+        }
+    }
+
+    /**
+     * Sets the sink that events are forwarded to after they are journaled.
+     *
+     * @param delegate The event sink.
+     */
+    public synchronized void setDelegate(EventSink delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Gets the data structure being journaled.
+     *
+     * @return The data structure, or null if the journal was not recovered and has not been started.
+     */
+    public synchronized DataStructure getDataStructure() {
+        return dataStructure;
+    }
+
+    /**
+     * Gets the number of operations replayed when the journal was opened.
+     *
+     * @return The number of operations, or 0 if there was no journal to recover.
+     */
+    public long getReplayedCount() {
+        return replayedCount;
+    }
+
+    /**
+     * Gets the number of operations recorded since the last snapshot.
+     *
+     * @return The number of operations.
+     */
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Gets the epoch of the snapshot the journal builds on.
+     *
+     * @return The epoch, or 0 if the journal has not been started.
+     */
+    public synchronized long getEpoch() {
+        return epoch;
+    }
+
+    private Path snapshotOf(long snapshotEpoch) {
+        return file.resolveSibling(file.getFileName() + "." + snapshotEpoch + ".snapshot");
+    }
+
+    /**
+     * Forces every recorded operation to disk, compacting first if the journal is stale, and closes the
+     * journal. The data structure goes back to reporting to the sink it had before.
+     *
+     * @throws IOException If the final write fails.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        try {
+            if (stale && channel != null) {
+                compact();
+            }
+            sync();
+        } finally {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+            if (dataStructure != null && dataStructure.getEventSink() == this) {
+                dataStructure.setEventSink(delegate);
+            }
+        }
+    }
+}
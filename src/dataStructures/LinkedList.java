@@ -1,14 +1,36 @@
 package dataStructures;
 
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
 /**
  * Implement of a linked list data structure.
  *
  * <p>A linked list is a linear data structure where elements are stored in nodes, and each node
  * points to the next one. This implementation provides methods for adding, removing, traversing,
  * and obtaining the visual representation of the linked list.</p>
+ *
+ * <p>The nodes are doubly linked and the list keeps a reference to its tail, so appending and unlinking
+ * a node are O(1). Finding the node to remove is a linear scan, unless the list is created indexed: it
+ * then also keeps an open-addressing hash table from each value to the last node holding it, and the
+ * nodes holding the same value are chained in a ring in list order, so removing by value is O(1) as well.
+ * The index costs the table plus one reference per node, see {@link #getIndexBytes()}.</p>
  */
 public class LinkedList extends DataStructure {
+    /**
+     * The size of a reference assumed by {@link #getIndexBytes()}, as with compressed references.
+     */
+    private static final int REFERENCE_BYTES = 4;
+
     private Node head;
+    private Node tail;
+    private int size;
+    private final Index index;
 
     /**
      * Inner class representing a node in the linked list.
@@ -16,6 +38,13 @@ public class LinkedList extends DataStructure {
     private static class Node {
         int value;
         Node next;
+        Node previous;
+
+        /**
+         * The next node in the list holding the same value, or the first one after the last, only kept when
+         * the list is indexed.
+         */
+        Node nextSame;
 
         Node(int value) {
             this.value = value;
@@ -23,67 +52,324 @@ public class LinkedList extends DataStructure {
         }
     }
 
+    /**
+     * A hash table from each value in the list to the last node holding it.
+     *
+     * <p>The values are kept in an {@code int[]} and found by linear probing, with the table at most half
+     * full; an empty slot has no node. The last node closes the ring of nodes with its value, so the first
+     * one is a single step away. Removed entries are filled by shifting later entries of the same probe run
+     * back, so no tombstones build up.</p>
+     */
+    private static final class Index {
+        private static final int DEFAULT_CAPACITY = 16;
+
+        int[] values = new int[DEFAULT_CAPACITY];
+        Node[] lasts = new Node[DEFAULT_CAPACITY];
+        int count;
+
+        /**
+         * Finds the slot of a value, or the empty slot where it would go.
+         */
+        int slotOf(int value) {
+            int mask = values.length - 1;
+            int slot = hash(value) & mask;
+            while (lasts[slot] != null && values[slot] != value) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static int hash(int value) {
+            int hash = value * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+
+        /**
+         * Records a node appended to the tail of the list.
+         */
+        void append(Node node) {
+            int slot = slotOf(node.value);
+            Node last = lasts[slot];
+            lasts[slot] = node;
+            if (last != null) {
+                node.nextSame = last.nextSame;
+                last.nextSame = node;
+                return;
+            }
+            node.nextSame = node;
+            values[slot] = node.value;
+            if (++count * 2 > values.length) {
+                grow();
+            }
+        }
+
+        /**
+         * Forgets the first node holding a value and returns it.
+         *
+         * @return The first node holding the value, or null if there is none.
+         */
+        Node removeFirst(int value) {
+            int slot = slotOf(value);
+            Node last = lasts[slot];
+            if (last == null) {
+                return null;
+            }
+            Node first = last.nextSame;
+            if (first == last) {
+                delete(slot);
+            } else {
+                last.nextSame = first.nextSame;
+            }
+            first.nextSame = null;
+            return first;
+        }
+
+        private void delete(int slot) {
+            int mask = values.length - 1;
+            int hole = slot;
+            for (int next = (hole + 1) & mask; lasts[next] != null; next = (next + 1) & mask) {
+                // An entry may fill the hole only if the hole lies between its home slot and where it is
+                int home = hash(values[next]) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    values[hole] = values[next];
+                    lasts[hole] = lasts[next];
+                    hole = next;
+                }
+            }
+            lasts[hole] = null;
+            count--;
+        }
+
+        private void grow() {
+            int[] oldValues = values;
+            Node[] oldLasts = lasts;
+            values = new int[oldValues.length * 2];
+            lasts = new Node[oldValues.length * 2];
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldLasts[i] != null) {
+                    int slot = slotOf(oldValues[i]);
+                    values[slot] = oldValues[i];
+                    lasts[slot] = oldLasts[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructs an empty linked list without an index.
+     */
+    public LinkedList() {
+        this(false);
+    }
+
+    /**
+     * Constructs an empty linked list.
+     *
+     * @param indexed Whether to keep a hash index from values to nodes, making removal by value O(1).
+     */
+    public LinkedList(boolean indexed) {
+        this.index = indexed ? new Index() : null;
+    }
+
+    @Override
+    public String getName() {
+        return index != null ? "indexed linked list" : "linked list";
+    }
+
+    /**
+     * Checks whether the list keeps a hash index from values to nodes.
+     *
+     * @return True if removing by value is O(1).
+     */
+    public boolean isIndexed() {
+        return index != null;
+    }
+
+    /**
+     * Gets the number of elements in the linked list.
+     *
+     * @return The number of elements.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the memory the index takes on top of the list itself.
+     *
+     * <p>This counts the two arrays of the hash table and the reference each node keeps to the next node
+     * with the same value, assuming {@value #REFERENCE_BYTES}-byte references; object headers and alignment
+     * are not included.</p>
+     *
+     * @return The number of bytes, or 0 if the list is not indexed.
+     */
+    public long getIndexBytes() {
+        if (index == null) {
+            return 0;
+        }
+        return (long) index.values.length * (Integer.BYTES + REFERENCE_BYTES) + (long) size * REFERENCE_BYTES;
+    }
+
+    /**
+     * Gets the number of distinct values in the index.
+     *
+     * @return The number of distinct values, or 0 if the list is not indexed.
+     */
+    public int getDistinctValues() {
+        return index == null ? 0 : index.count;
+    }
+
     /**
      * Adds a new node with the specified value to the end of the linked list.
      *
-     * <p>This method creates a new node with the given value and appends it to the end
-     * of the linked list. If the linked list is empty, the new node becomes the head.
-     * the value of the added node is printed to the console, indicating the successful
-     * addition of the node.</p>
+     * <p>This method creates a new node with the given value and appends it after the tail
+     * of the linked list in O(1). If the linked list is empty, the new node becomes the head.
+     * The addition is reported to the event sink.</p>
      *
      * @param value The value to be added to the linked list.
      */
     @Override
     public void addNode(int value) {
-        Node newNode = new Node(value);
+        append(new Node(value));
+        markModified();
+        emit(Operation.ADD, value, Outcome.SUCCESS);
+    }
 
-        if (head == null) {
-            head = newNode;
+    /**
+     * Appends many values at once, in a single pass from the tail.
+     *
+     * <p>Each value is linked after the tail, and into the index if there is one, in O(1) without being
+     * reported; the modification count is bumped once.</p>
+     *
+     * @param values The values to append, in order.
+     */
+    @Override
+    public void bulkLoad(int[] values) {
+        if (values.length == 0) {
+            return;
+        }
+        for (int value : values) {
+            append(new Node(value));
+        }
+        markModified();
+    }
+
+    private void append(Node node) {
+        if (tail == null) {
+            head = node;
         } else {
-            Node current = head;
-            while (current.next != null) {
-                current = current.next;
-            }
-            current.next = newNode;
+            tail.next = node;
+            node.previous = tail;
+        }
+        tail = node;
+        size++;
+        if (index != null) {
+            index.append(node);
         }
-        System.out.println("Added node with value: " + value);
     }
 
     /**
      * Removes a node with the specified value from the linked list.
      *
-     * <p>If the linked list is empty. a message is printed indicating that the linked list
-     * is empty and the operation cannot be performed. if the node with the specified value
-     * is found, it is removed from the linked list. If the node is the head, the head is
-     * updated o the next node. If the node is not found, a message is printed indicating
-     * that the node with the specified value was not found in the linked list.</p>
+     * <p>If the linked list is empty, an {@link Outcome#EMPTY} event is reported and the operation
+     * cannot be performed. If a node with the specified value is found, the first one is unlinked from
+     * its neighbours; the index finds it in O(1), and without one the list is scanned from the head. If
+     * the node is not found, a {@link Outcome#NOT_FOUND} event is reported.</p>
      *
      * @param value The value of the node to be removed from the linked list.
      */
     @Override
     public void removeNode(int value) {
         if (head == null) {
-            System.out.println("Linked list is empty. Cannot remove node.");
+            emit(Operation.REMOVE, value, Outcome.EMPTY);
             return;
         }
 
-        if (head.value == value) {
-            head = head.next;
-            System.out.println("Removed node with value: " + value);
+        Node node;
+        if (index != null) {
+            node = index.removeFirst(value);
+        } else {
+            node = head;
+            while (node != null && node.value != value) {
+                node = node.next;
+            }
+        }
+        if (node == null) {
+            emit(Operation.REMOVE, value, Outcome.NOT_FOUND);
             return;
         }
 
-        Node current = head;
-        while (current.next != null && current.next.value != value) {
-            current = current.next;
+        if (node.previous == null) {
+            head = node.next;
+        } else {
+            node.previous.next = node.next;
         }
-
-        if (current.next != null) {
-            current.next = current.next.next;
-            System.out.println("Removed node with value: " + value);
+        if (node.next == null) {
+            tail = node.previous;
         } else {
-            System.out.println("Node with value " + value + " not found in the linked list.");
+            node.next.previous = node.previous;
         }
+        size--;
+        markModified();
+        emit(Operation.REMOVE, value, Outcome.SUCCESS);
+    }
+
+    @Override
+    void writeSnapshot(Snapshot.Target target) throws IOException {
+        IntBuffer out = target.open(size, size);
+        for (Node current = head; current != null; current = current.next) {
+            out.put(current.value);
+        }
+    }
+
+    @Override
+    void readSnapshot(IntBuffer in, int size) {
+        for (int i = 0; i < size; i++) {
+            append(new Node(in.get()));
+        }
+        markModified();
+    }
+
+    /**
+     * Gets a lazy iterator over the values from the head to the tail.
+     *
+     * @return An iterator that fails if the list is changed while it is in use.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private final long expectedModificationCount = getModificationCount();
+            private Node next = head;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                if (getModificationCount() != expectedModificationCount) {
+                    throw new ConcurrentModificationException();
+                }
+                int value = next.value;
+                next = next.next;
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Gets a spliterator over the values from the head to the tail that knows the size of the list.
+     *
+     * @return A spliterator over the values.
+     */
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED);
     }
 
     /**
@@ -104,23 +390,54 @@ public class LinkedList extends DataStructure {
     }
 
     /**
-     * Gets the visual representation of the linked list.
+     * Writes the visual representation of the linked list.
      *
-     * <p>This method creates a visual representation of the linked list, displaying each element
+     * <p>This method streams a visual representation of the linked list, displaying each element
      * enclosed in square brackets and connected by arrows. The representation ends with "null" to
-     * indicate the end of the linked list.</p>
+     * indicate the end of the linked list. Elements before and after the viewport are replaced by
+     * a count of how many were skipped. The first element shown is reached from whichever end of
+     * the list is closer, so paging to the last elements does not walk the whole list.</p>
      *
-     * @return The visual representation of the linked list.
+     * @param out The destination the representation is streamed into.
+     * @param viewport The range of elements to render.
+     * @throws IOException If writing to {@code out} fails.
      */
     @Override
-    public String getVisualRepresentation() {
-        StringBuilder visualRepresentation = new StringBuilder();
-        Node current = head;
-        while (current != null) {
-            visualRepresentation.append("[").append(current.value).append("] -> ");
+    public void writeVisualRepresentation(Appendable out, Viewport viewport) throws IOException {
+        int offset = Math.min(viewport.getOffset(), size);
+        Node current;
+        if (offset > size / 2) {
+            current = offset == size ? null : tail;
+            for (int i = size - 1; i > offset; i--) {
+                current = current.previous;
+            }
+        } else {
+            current = head;
+            for (int i = 0; i < offset; i++) {
+                current = current.next;
+            }
+        }
+        if (offset > 0) {
+            out.append("... (");
+            appendValue(out, offset);
+            out.append(" more) -> ");
+        }
+
+        int shown = 0;
+        while (current != null && shown < viewport.getSize()) {
+            out.append('[');
+            appendValue(out, current.value);
+            out.append("] -> ");
             current = current.next;
+            shown++;
+        }
+
+        int remaining = size - offset - shown;
+        if (remaining > 0) {
+            out.append("... (");
+            appendValue(out, remaining);
+            out.append(" more) -> ");
         }
-        visualRepresentation.append("null");
-        return visualRepresentation.toString();
+        out.append("null");
     }
 }
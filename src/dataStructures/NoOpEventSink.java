@@ -0,0 +1,21 @@
+package dataStructures;
+
+/**
+ * An event sink that discards every event.
+ *
+ * <p>Used when operations run in bulk, such as batch scripts and benchmarks, where reporting each
+ * operation would dominate the cost of performing it.</p>
+ */
+public final class NoOpEventSink implements EventSink {
+    /**
+     * The shared instance.
+     */
+    public static final NoOpEventSink INSTANCE = new NoOpEventSink();
+
+    private NoOpEventSink() {
+    }
+
+    @Override
+    public void onEvent(DataStructure source, Operation operation, int value, Outcome outcome) {
+    }
+}
@@ -0,0 +1,22 @@
+package dataStructures;
+
+/**
+ * The operations a data structure reports to its {@link EventSink}.
+ */
+public enum Operation {
+    ADD,
+    REMOVE,
+    PUSH,
+    POP,
+    PEEK,
+    ENQUEUE,
+    DEQUEUE,
+    /**
+     * An edge was added between two vertices; reported through {@link EventSink#onEdgeEvent}.
+     */
+    ADD_EDGE,
+    /**
+     * An edge between two vertices was removed; reported through {@link EventSink#onEdgeEvent}.
+     */
+    REMOVE_EDGE
+}
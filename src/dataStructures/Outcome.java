@@ -0,0 +1,23 @@
+package dataStructures;
+
+/**
+ * The result of an operation reported to an {@link EventSink}.
+ */
+public enum Outcome {
+    /**
+     * The operation was carried out.
+     */
+    SUCCESS,
+    /**
+     * The value to remove is not in the data structure.
+     */
+    NOT_FOUND,
+    /**
+     * The value to add is already in a data structure that does not allow duplicates.
+     */
+    DUPLICATE,
+    /**
+     * The data structure is empty, so there is nothing to remove or inspect.
+     */
+    EMPTY
+}
@@ -0,0 +1,212 @@
+package dataStructures;
+
+import java.io.IOException;
+import java.util.Spliterator;
+
+/**
+ * Operations on immutable AVL trees.
+ *
+ * <p>Nodes are never modified after construction. An insertion or removal copies only the nodes on the
+ * path from the root to the change, at most O(log n) of them, and shares every other subtree with the
+ * original tree, which stays valid. Holding on to a root therefore gives a snapshot that later updates
+ * cannot disturb, and publishing a new root with a single reference write makes a whole update visible at
+ * once. Operations that change nothing return the tree they were given, so callers can detect duplicates and
+ * missing values by comparing roots.</p>
+ */
+final class PersistentTree {
+    private PersistentTree() {
+    }
+
+    /**
+     * An immutable node, which also records the height and size of the subtree it roots.
+     */
+    static final class Node {
+        final int value;
+        final int height;
+        final int size;
+        final Node left;
+        final Node right;
+
+        Node(int value, Node left, Node right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Checks whether a tree contains a value.
+     */
+    static boolean contains(Node root, int value) {
+        Node current = root;
+        while (current != null) {
+            if (value < current.value) {
+                current = current.left;
+            } else if (value > current.value) {
+                current = current.right;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Inserts a value.
+     *
+     * @return The root of the new tree, or {@code node} itself if the value was already present.
+     */
+    static Node insert(Node node, int value) {
+        if (node == null) {
+            return new Node(value, null, null);
+        }
+        if (value < node.value) {
+            Node left = insert(node.left, value);
+            return left == node.left ? node : balance(node.value, left, node.right);
+        }
+        if (value > node.value) {
+            Node right = insert(node.right, value);
+            return right == node.right ? node : balance(node.value, node.left, right);
+        }
+        return node;
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @return The root of the new tree, or {@code node} itself if the value was not present.
+     */
+    static Node delete(Node node, int value) {
+        if (node == null) {
+            return null;
+        }
+        if (value < node.value) {
+            Node left = delete(node.left, value);
+            return left == node.left ? node : balance(node.value, left, node.right);
+        }
+        if (value > node.value) {
+            Node right = delete(node.right, value);
+            return right == node.right ? node : balance(node.value, node.left, right);
+        }
+
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        // Replace the value with its in-order successor, the smallest value of the right subtree
+        Node successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.value, node.left, delete(node.right, successor.value));
+    }
+
+    /**
+     * Builds a node from a value and two subtrees whose heights differ by at most two, rotating if needed.
+     */
+    private static Node balance(int value, Node left, Node right) {
+        int difference = height(left) - height(right);
+        if (difference > 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node(left.value, left.left, new Node(value, left.right, right));
+            }
+            Node pivot = left.right;
+            return new Node(pivot.value, new Node(left.value, left.left, pivot.left), new Node(value, pivot.right, right));
+        }
+        if (difference < -1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node(right.value, new Node(value, left, right.left), right.right);
+            }
+            Node pivot = right.left;
+            return new Node(pivot.value, new Node(value, left, pivot.left), new Node(right.value, pivot.right, right.right));
+        }
+        return new Node(value, left, right);
+    }
+
+    /**
+     * Walks the values of a tree in ascending order, splitting into subtrees of exactly known size.
+     */
+    static Spliterator.OfInt spliterator(Node root) {
+        return new TreeSpliterator<>(SHAPE, root, size(root), Spliterator.IMMUTABLE);
+    }
+
+    private static final TreeSpliterator.Shape<Node> SHAPE = new TreeSpliterator.Shape<Node>() {
+        @Override
+        public Node left(Node node) {
+            return node.left;
+        }
+
+        @Override
+        public Node right(Node node) {
+            return node.right;
+        }
+
+        @Override
+        public int value(Node node) {
+            return node.value;
+        }
+
+        @Override
+        public int size(Node node) {
+            return node.size;
+        }
+    };
+
+    /**
+     * Copies the values of a tree into an array in ascending order.
+     */
+    static int[] toArray(Node root) {
+        int[] values = new int[size(root)];
+        Node[] stack = new Node[height(root)];
+        int top = 0;
+        int count = 0;
+        Node current = root;
+        while (current != null || top > 0) {
+            while (current != null) {
+                stack[top++] = current;
+                current = current.left;
+            }
+            current = stack[--top];
+            values[count++] = current.value;
+            current = current.right;
+        }
+        return values;
+    }
+
+    /**
+     * Builds a perfectly balanced tree from values in strictly ascending order.
+     *
+     * @return The root of a tree holding {@code values[from, to)}.
+     */
+    static Node fromSorted(int[] values, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node(values[middle], fromSorted(values, from, middle), fromSorted(values, middle + 1, to));
+    }
+
+    /**
+     * Writes a tree in the indented pre-order layout shared by all trees, see {@link TreeRenderer}.
+     *
+     * @param out The destination the representation is streamed into.
+     * @param root The root of the tree to write.
+     * @param viewport The rows and levels of the tree to render.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    static void write(Appendable out, Node root, Viewport viewport) throws IOException {
+        TreeRenderer.write(out, SHAPE, root, viewport);
+    }
+}
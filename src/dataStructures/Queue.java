@@ -0,0 +1,335 @@
+package dataStructures;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Implementation of a queue data structure backed by a ring buffer.
+ *
+ * <p>A queue is a first-in, first-out (FIFO) data structure where elements are added at the back and
+ * removed from the front. The elements live in an {@code int[]} whose length is a power of two, so the
+ * position after the last element wraps around with a bit mask instead of a division, and both ends move
+ * in O(1) without allocating a node per element. When the buffer is full it doubles in size.</p>
+ */
+public class Queue extends DataStructure {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private int[] elements;
+    private int head;
+    private int size;
+
+    /**
+     * Constructs an empty queue.
+     */
+    public Queue() {
+        this.elements = new int[DEFAULT_CAPACITY];
+    }
+
+    @Override
+    public String getName() {
+        return "queue";
+    }
+
+    /**
+     * Adds an element with the specified value to the back of the queue.
+     * This operation is equivalent to {@link #enqueue(int)}.
+     *
+     * @param value The value to be added to the queue.
+     */
+    @Override
+    public void addNode(int value) {
+        enqueue(value);
+    }
+
+    /**
+     * Removes the element at the front of the queue.
+     * This operation is equivalent to dequeuing an element.
+     *
+     * <p>If the queue is empty, an {@link Outcome#EMPTY} event is reported and nothing is removed.
+     * Otherwise the dequeue is reported to the event sink with the removed value.</p>
+     *
+     * @param value Ignored, since a queue always removes its front element.
+     */
+    @Override
+    public void removeNode(int value) {
+        if (size == 0) {
+            emit(Operation.DEQUEUE, value, Outcome.EMPTY);
+            return;
+        }
+        dequeue();
+    }
+
+    /**
+     * Adds an element to the back of the queue.
+     *
+     * @param value The value to be added to the queue.
+     */
+    public void enqueue(int value) {
+        ensureCapacity(size + 1);
+        elements[(head + size) & (elements.length - 1)] = value;
+        size++;
+        markModified();
+        emit(Operation.ENQUEUE, value, Outcome.SUCCESS);
+    }
+
+    /**
+     * Removes and returns the element at the front of the queue.
+     *
+     * @return The value of the front element.
+     * @throws NoSuchElementException If the queue is empty.
+     */
+    public int dequeue() {
+        if (size == 0) {
+            throw new NoSuchElementException("Queue is empty.");
+        }
+
+        int value = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        markModified();
+        emit(Operation.DEQUEUE, value, Outcome.SUCCESS);
+        return value;
+    }
+
+    /**
+     * Returns the element at the front of the queue without removing it.
+     *
+     * @return The value of the front element.
+     * @throws NoSuchElementException If the queue is empty.
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException("Queue is empty.");
+        }
+        return elements[head];
+    }
+
+    /**
+     * Adds every value of the given array to the back of the queue, in order.
+     *
+     * <p>The buffer is grown at most once, and the values are copied in at most two blocks, one up to the
+     * end of the buffer and one wrapping around to its start.</p>
+     *
+     * @param values The values to be added.
+     */
+    public void offerAll(int[] values) {
+        bulkLoad(values);
+        for (int value : values) {
+            emit(Operation.ENQUEUE, value, Outcome.SUCCESS);
+        }
+    }
+
+    /**
+     * Adds many elements to the back of the queue at once, like {@link #offerAll(int[])} but without reporting
+     * them.
+     *
+     * @param values The values to be added, in order.
+     */
+    @Override
+    public void bulkLoad(int[] values) {
+        if (values.length == 0) {
+            return;
+        }
+        ensureCapacity(size + values.length);
+
+        int tail = (head + size) & (elements.length - 1);
+        int firstBlock = Math.min(values.length, elements.length - tail);
+        System.arraycopy(values, 0, elements, tail, firstBlock);
+        System.arraycopy(values, firstBlock, elements, 0, values.length - firstBlock);
+        size += values.length;
+        markModified();
+    }
+
+    /**
+     * Removes elements from the front of the queue into an array, in order, until the queue is empty
+     * or the array is full.
+     *
+     * <p>Like {@link #offerAll(int[])}, the elements are moved in at most two blocks.</p>
+     *
+     * @param destination The array to fill from index 0.
+     * @return The number of elements removed.
+     */
+    public int drainTo(int[] destination) {
+        int count = Math.min(size, destination.length);
+        if (count == 0) {
+            return 0;
+        }
+
+        int firstBlock = Math.min(count, elements.length - head);
+        System.arraycopy(elements, head, destination, 0, firstBlock);
+        System.arraycopy(elements, 0, destination, firstBlock, count - firstBlock);
+        head = (head + count) & (elements.length - 1);
+        size -= count;
+        markModified();
+
+        for (int i = 0; i < count; i++) {
+            emit(Operation.DEQUEUE, destination[i], Outcome.SUCCESS);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of elements in the queue.
+     *
+     * @return The number of elements.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the queue is empty.
+     *
+     * @return True if the queue has no elements.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets a copy of the elements, from the front to the back.
+     *
+     * @return The elements in the order they would be dequeued.
+     */
+    public int[] toArray() {
+        int[] copy = new int[size];
+        int firstBlock = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, copy, 0, firstBlock);
+        System.arraycopy(elements, 0, copy, firstBlock, size - firstBlock);
+        return copy;
+    }
+
+    @Override
+    void writeSnapshot(Snapshot.Target target) throws IOException {
+        IntBuffer out = target.open(size, size);
+        int firstBlock = Math.min(size, elements.length - head);
+        out.put(elements, head, firstBlock);
+        out.put(elements, 0, size - firstBlock);
+    }
+
+    @Override
+    void readSnapshot(IntBuffer in, int size) {
+        ensureCapacity(size);
+        in.get(elements, 0, size);
+        head = 0;
+        this.size = size;
+        markModified();
+    }
+
+    /**
+     * Grows the buffer to the next power of two that holds the given number of elements, moving the
+     * front of the queue to index 0.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity <= elements.length) {
+            return;
+        }
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Queue cannot hold more than " + MAX_CAPACITY + " elements.");
+        }
+
+        int[] grown = new int[Integer.highestOneBit(capacity - 1) << 1];
+        int firstBlock = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, grown, 0, firstBlock);
+        System.arraycopy(elements, 0, grown, firstBlock, size - firstBlock);
+        elements = grown;
+        head = 0;
+    }
+
+    /**
+     * Gets a lazy iterator over the values from the front to the back.
+     *
+     * @return An iterator that fails if the queue is changed while it is in use.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private final long expectedModificationCount = getModificationCount();
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public int nextInt() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                if (getModificationCount() != expectedModificationCount) {
+                    throw new ConcurrentModificationException();
+                }
+                return elements[(head + index++) & (elements.length - 1)];
+            }
+        };
+    }
+
+    /**
+     * Gets a spliterator over the values from the front to the back that knows the size of the queue.
+     *
+     * @return A spliterator over the values.
+     */
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED);
+    }
+
+    /**
+     * Displays the elements in the queue.
+     *
+     * <p>This method prints each element's value to the console from the front to the back.</p>
+     */
+    @Override
+    public void traverse() {
+        System.out.print("Queue: ");
+        int mask = elements.length - 1;
+        for (int i = 0; i < size; i++) {
+            System.out.print(elements[(head + i) & mask] + " ");
+        }
+        System.out.println();
+    }
+
+    /**
+     * Writes the visual representation of the queue.
+     *
+     * <p>This method streams the elements from the front to the back, each enclosed in square brackets.
+     * Since any position can be reached directly, only the elements inside the viewport are visited; the
+     * ones before and after it are replaced by a count.</p>
+     *
+     * @param out The destination the representation is streamed into.
+     * @param viewport The range of elements to render, counted from the front.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    @Override
+    public void writeVisualRepresentation(Appendable out, Viewport viewport) throws IOException {
+        int offset = Math.min(viewport.getOffset(), size);
+        int end = Math.min(viewport.getEnd(), size);
+        int mask = elements.length - 1;
+
+        out.append("Front -> ");
+        if (offset > 0) {
+            out.append("... (");
+            appendValue(out, offset);
+            out.append(" more) ");
+        }
+        for (int i = offset; i < end; i++) {
+            out.append('[');
+            appendValue(out, elements[(head + i) & mask]);
+            out.append("] ");
+        }
+        if (end < size) {
+            out.append("... (");
+            appendValue(out, size - end);
+            out.append(" more) ");
+        }
+        out.append("<- Back");
+    }
+}
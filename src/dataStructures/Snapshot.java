@@ -0,0 +1,215 @@
+package dataStructures;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Saves data structures to, and loads them from, compact binary snapshot files.
+ *
+ * <p>A snapshot is a 24-byte header followed by a flat payload of little-endian ints. The header holds a
+ * magic number, the format version, the type of the data structure (its number in the menu), the number of
+ * elements and the length of the payload in ints. What the payload holds depends on the type: the elements in
+ * order for linear structures, a pre-order walk for {@link BinaryTree} and {@link ArenaTree} so their exact
+ * shape comes back, the
+ * values in ascending order for the balanced trees, and the vertices followed by each vertex's out-edges for
+ * {@link DirectedGraph}.</p>
+ *
+ * <p>Both directions go through a memory-mapped {@link FileChannel}. Loading copies the payload straight out
+ * of the mapping in bulk where the structure is an array, and otherwise builds nodes in a single linear pass,
+ * so it is limited by disk bandwidth rather than by parsing or by replaying {@code addNode}. Saving writes to
+ * a temporary file that replaces the target only once it is complete.</p>
+ */
+public final class Snapshot {
+    private static final int MAGIC = 0x53565344; // "DSVS" in little-endian byte order
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+
+    /**
+     * The longest payload that fits in a single mapping.
+     */
+    private static final long MAX_PAYLOAD_LENGTH = (Integer.MAX_VALUE - HEADER_BYTES) / Integer.BYTES;
+
+    private Snapshot() {
+    }
+
+    /**
+     * Where a data structure writes its snapshot.
+     */
+    interface Target {
+        /**
+         * Writes the header and returns the buffer for the payload.
+         *
+         * @param size The number of elements.
+         * @param length The number of ints in the payload.
+         * @return A buffer with room for exactly {@code length} ints.
+         * @throws IOException If the file cannot be mapped.
+         */
+        IntBuffer open(int size, long length) throws IOException;
+    }
+
+    /**
+     * Saves a data structure to a file, replacing the file if it exists.
+     *
+     * @param dataStructure The data structure to save.
+     * @param file The file to write.
+     * @return The size of the file in bytes.
+     * @throws IOException If writing the file fails.
+     * @throws IllegalArgumentException If the type of data structure cannot be saved.
+     */
+    public static long save(DataStructure dataStructure, Path file) throws IOException {
+        int type = typeOf(dataStructure);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        long bytes;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer[] mapping = new MappedByteBuffer[1];
+            IntBuffer[] payload = new IntBuffer[1];
+            dataStructure.writeSnapshot((size, length) -> {
+                if (length > MAX_PAYLOAD_LENGTH) {
+                    throw new IOException("The " + dataStructure.getName() + " is too large for a snapshot.");
+                }
+                mapping[0] = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + length * Integer.BYTES);
+                mapping[0].order(ByteOrder.LITTLE_ENDIAN)
+                        .putInt(MAGIC)
+                        .putInt(VERSION)
+                        .putInt(type)
+                        .putInt(size)
+                        .putLong(length);
+                payload[0] = payloadOf(mapping[0]);
+                return payload[0];
+            });
+
+            if (payload[0] == null || payload[0].hasRemaining()) {
+                throw new IllegalStateException("The " + dataStructure.getName() + " wrote an incomplete snapshot.");
+            }
+            mapping[0].force();
+            bytes = mapping[0].capacity();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return bytes;
+    }
+
+    /**
+     * Loads a data structure from a file written by {@link #save(DataStructure, Path)}.
+     *
+     * @param file The file to read.
+     * @return A new data structure with the saved contents, reporting to the default event sink.
+     * @throws IOException If reading the file fails or it is not a valid snapshot.
+     */
+    public static DataStructure load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES || fileSize > Integer.MAX_VALUE) {
+                throw new IOException(file + " is not a data structure snapshot.");
+            }
+
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            mapping.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapping.getInt() != MAGIC) {
+                throw new IOException(file + " is not a data structure snapshot.");
+            }
+            int version = mapping.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has unsupported snapshot version " + version + ".");
+            }
+            int type = mapping.getInt();
+            int size = mapping.getInt();
+            long length = mapping.getLong();
+            if (size < 0 || length < 0 || HEADER_BYTES + length * Integer.BYTES != fileSize) {
+                throw new IOException(file + " is truncated or corrupt.");
+            }
+
+            DataStructure dataStructure = create(type);
+            IntBuffer payload = payloadOf(mapping);
+            try {
+                dataStructure.readSnapshot(payload, size);
+            } catch (RuntimeException e) {
+                throw new IOException(file + " is corrupt: " + e.getMessage(), e);
+            }
+            if (payload.hasRemaining()) {
+                throw new IOException(file + " is corrupt: " + payload.remaining() + " unread ints.");
+            }
+            return dataStructure;
+        } catch (NoSuchFileException e) {
+            throw new IOException(file + " does not exist.", e);
+        }
+    }
+
+    private static IntBuffer payloadOf(ByteBuffer mapping) {
+        // Slicing resets the byte order, so it is set again on the slice
+        return mapping.position(HEADER_BYTES).slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    /**
+     * Gets the type recorded for a data structure, which is its number in the menu.
+     */
+    static int typeOf(DataStructure dataStructure) {
+        if (dataStructure instanceof LinkedList) {
+            return ((LinkedList) dataStructure).isIndexed() ? 13 : 1;
+        } else if (dataStructure instanceof Stack) {
+            return 2;
+        } else if (dataStructure instanceof Queue) {
+            return 3;
+        } else if (dataStructure instanceof BinaryTree) {
+            return 4;
+        } else if (dataStructure instanceof AVLTree) {
+            return 6;
+        } else if (dataStructure instanceof Array) {
+            return ((Array) dataStructure).isSorted() ? 8 : 7;
+        } else if (dataStructure instanceof DirectedGraph) {
+            return 9;
+        } else if (dataStructure instanceof ConcurrentStack) {
+            return 10;
+        } else if (dataStructure instanceof ConcurrentTree) {
+            return 11;
+        } else if (dataStructure instanceof ArenaTree) {
+            return 12;
+        }
+        throw new IllegalArgumentException("A " + dataStructure.getName() + " cannot be saved.");
+    }
+
+    static DataStructure create(int type) throws IOException {
+        switch (type) {
+            case 1:
+                return new LinkedList();
+            case 2:
+                return new Stack();
+            case 3:
+                return new Queue();
+            case 4:
+                return new BinaryTree();
+            case 6:
+                return new AVLTree();
+            case 7:
+                return new Array();
+            case 8:
+                return new Array(true);
+            case 9:
+                return new DirectedGraph();
+            case 10:
+                return new ConcurrentStack();
+            case 11:
+                return new ConcurrentTree();
+            case 12:
+                return new ArenaTree();
+            case 13:
+                return new LinkedList(true);
+            default:
+                throw new IOException("Unknown data structure type " + type + " in snapshot.");
+        }
+    }
+}
@@ -1,70 +1,272 @@
 package dataStructures;
 
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.ConcurrentModificationException;
+import java.util.EmptyStackException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
 /**
  * Implementation of a stack data structure.
  *
  * <p>A stack is a last-in, first-out (LIFO) data structure where elements are added and removed
  * from the top of the stack. This implementation provides methods for adding, removing, traversing,
  * and obtaining he visual representation of the stack.</p>
+ *
+ * <p>The elements are stored in a persistent list of chunks, each an {@code int[]} of usually
+ * {@value #CHUNK_SIZE} elements linked to the chunk below it and to how many of that chunk's slots it
+ * continues from. Pushing and popping work on the top chunk like an array stack, so only one push in
+ * {@value #CHUNK_SIZE} allocates.</p>
+ *
+ * <p>Chunks are shared between the stack and the versions captured from it with {@link #captureVersion()}. A
+ * version is just the top chunk and how many of its slots were in use, and each chunk remembers the most slots
+ * any version has seen of it. A push into a slot above that mark writes in place, so capturing after every
+ * operation, as the visualisation engine does, leaves runs of pushes and runs of pops allocation-free. Only a
+ * push that would overwrite a slot a version can still see, which happens when pushing right after popping
+ * past a capture, cannot write in place. It starts a chunk of {@value #BRANCH_SIZE} slots on top of the part
+ * of the old chunk that is still in use, so nothing is copied. Capturing or restoring a version is O(1). The
+ * stack is not thread-safe; {@link ConcurrentStack} can be shared between threads.</p>
  */
-public class Stack extends DataStructure {
-    private Element top;
+public class Stack extends DataStructure implements Versioned {
+    private static final int CHUNK_SIZE = 32;
+    private static final int BRANCH_SIZE = 2;
+
+    /**
+     * The top chunk, which may be empty, or null if nothing has been pushed.
+     */
+    private Chunk top;
+    private int topCount;
+    private int size;
+
+    /**
+     * The number of versions captured or restored so far.
+     */
+    private int versionEvents;
+
+    /**
+     * A chunk of elements. Every chunk below the top one is in use up to the count the chunk above it records.
+     */
+    private static final class Chunk {
+        final int[] values;
+        final Chunk below;
+
+        /**
+         * The number of slots of the chunk below that are part of the stack under this chunk.
+         */
+        final int belowCount;
+
+        /**
+         * The number of slots, counted from the bottom of the chunk, that a captured version may see. They
+         * must not be written again; a push below the mark starts a new chunk instead.
+         */
+        int seen;
+
+        /**
+         * The number of versions captured or restored when a chunk was last pushed on top of this one. If
+         * another has been since, a version may see this chunk through the chunks above it.
+         */
+        int coveredAt;
+
+        Chunk(int capacity, Chunk below, int belowCount) {
+            this.values = new int[capacity];
+            this.below = below;
+            this.belowCount = belowCount;
+        }
+    }
 
     /**
-     * Inner class representing a node in the stack.
+     * A captured version of the stack.
      */
-    private static class Element {
-        int value;
-        Element next;
+    private static final class Version {
+        final Chunk top;
+        final int topCount;
+        final int size;
 
-        Element(int value) {
-            this.value = value;
-            this.next = null;
+        Version(Chunk top, int topCount, int size) {
+            this.top = top;
+            this.topCount = topCount;
+            this.size = size;
         }
     }
 
+    @Override
+    public String getName() {
+        return "stack";
+    }
+
     /**
      * Adds a new element with the specific value to the top of the stack.
      * This operation is equivalent to pushing an element onto the stack.
      *
-     * <p>This method creates a new element with the given value and paces it at the
-     * top of the stack. The newly added element becomes the new top of the stack,
-     * and the next reference of the new element is set to the previous top of the stack.
-     * The value of the added node is printed to the console, indicating the successful
-     * push operation.</p>
+     * <p>This method stores the value in the slot above the current top, which then becomes the
+     * new top of the stack. The push is reported to the event sink.</p>
      *
      * @param value The value to be added to the stack.
      */
     @Override
     public void addNode(int value) {
-    // Push Operation: Add a new node to the top of the stack
-    Element newNode = new Element(value);
-    newNode.next = top;
-    top = newNode;
-    System.out.println("Pushed element onto the stack: " + value);
+        push(value);
     }
 
     /**
      * Removes the top element from the stack.
      * This operation is equivalent to popping an element from the stack.
      *
-     * <p>If the stack is empty. a message is printed indicating that the stack is empty
-     * and the operation cannot be performed. Otherwise, the top element is removed from
-     * the stack, and a message is printed indicating the successful pop operation.</p>
+     * <p>If the stack is empty, an {@link Outcome#EMPTY} event is reported and the operation
+     * cannot be performed. Otherwise, the top element is removed from the stack, and the pop
+     * is reported to the event sink with the popped value.</p>
      *
      * @param value The value being removed from the stack.
      */
     @Override
     public void removeNode(int value) {
-        // Pop Operation: Remove the top node from the stack
-        if (top == null) {
-            System.out.println("Stack is empty. Cannot pop.");
+        if (size == 0) {
+            emit(Operation.POP, value, Outcome.EMPTY);
             return;
         }
+        pop();
+    }
+
+    /**
+     * Pushes an element onto the top of the stack.
+     *
+     * @param value The value to be pushed.
+     */
+    public void push(int value) {
+        store(value);
+        markModified();
+        emit(Operation.PUSH, value, Outcome.SUCCESS);
+    }
+
+    /**
+     * Pushes many values at once, in order, so the last value ends up on top.
+     *
+     * <p>The values are stored in a single pass, a chunk at a time, without being reported; the modification
+     * count is bumped once.</p>
+     *
+     * @param values The values to push.
+     */
+    @Override
+    public void bulkLoad(int[] values) {
+        if (values.length == 0) {
+            return;
+        }
+        for (int value : values) {
+            store(value);
+        }
+        markModified();
+    }
+
+    private void store(int value) {
+        if (top == null || topCount == top.values.length) {
+            startChunk(CHUNK_SIZE);
+        } else if (topCount < top.seen) {
+            // A version still sees the slot about to be written, so leave the chunk to it and branch off
+            startChunk(BRANCH_SIZE);
+        }
+        top.values[topCount++] = value;
+        size++;
+    }
+
+    /**
+     * Starts a new, empty top chunk over the slots of the current one that are in use.
+     */
+    private void startChunk(int capacity) {
+        if (top != null && topCount == 0) {
+            // Never leave an empty chunk under another one
+            uncover();
+        }
+        if (top != null) {
+            top.coveredAt = versionEvents;
+        }
+        top = new Chunk(capacity, top, topCount);
+        topCount = 0;
+    }
+
+    /**
+     * Drops the empty top chunk, making the chunk below it the top one.
+     */
+    private void uncover() {
+        topCount = top.belowCount;
+        top = top.below;
+        if (top != null && versionEvents > top.coveredAt) {
+            // A version captured or restored while the chunk was covered may see all of it
+            top.seen = top.values.length;
+        }
+    }
+
+    /**
+     * Removes and returns the top element of the stack.
+     *
+     * @return The value of the top element.
+     * @throws EmptyStackException If the stack is empty.
+     */
+    public int pop() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        if (topCount == 0) {
+            // Keep an emptied chunk until the next pop, so pushing and popping across a boundary does not allocate
+            uncover();
+        }
+
+        int popped = top.values[--topCount];
+        size--;
+        markModified();
+        emit(Operation.POP, popped, Outcome.SUCCESS);
+        return popped;
+    }
+
+    /**
+     * Gets a lazy iterator over the values from the top to the bottom.
+     *
+     * <p>The iterator reads the chunks in place, without capturing a version, so reading the stack never makes
+     * a later push copy a chunk.</p>
+     *
+     * @return An iterator that fails if the stack is changed while it is in use.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private final long expectedModificationCount = getModificationCount();
+            private Chunk chunk = top;
+            private int index = topCount;
+            private int remaining = size;
 
-        System.out.println("Popped element from the stack: " + top.value);
-        top = top.next;
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
 
+            @Override
+            public int nextInt() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                if (getModificationCount() != expectedModificationCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (index == 0) {
+                    index = chunk.belowCount;
+                    chunk = chunk.below;
+                }
+                remaining--;
+                return chunk.values[--index];
+            }
+        };
+    }
+
+    /**
+     * Gets a spliterator over the values from the top to the bottom that knows the size of the stack.
+     *
+     * @return A spliterator over the values.
+     */
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED);
     }
 
     /**
@@ -76,48 +278,156 @@ public class Stack extends DataStructure {
      */
     @Override
     public void traverse() {
-        Element current = top;
         System.out.println("Stack: ");
-        while (current != null) {
-            System.out.print(current.value + " ");
-            current = current.next;
+        int count = topCount;
+        for (Chunk chunk = top; chunk != null; count = chunk.belowCount, chunk = chunk.below) {
+            for (int i = count - 1; i >= 0; i--) {
+                System.out.print(chunk.values[i] + " ");
+            }
         }
         System.out.println();
     }
 
     /**
      * Returns the value of the top element without removing it.
-     * If the stack is empty, it prints a message indicating that the stack is empty
-     * and returns a sentinel value of -1.
      *
      * @return The value of the top element.
+     * @throws EmptyStackException If the stack is empty.
      */
     public int peak() {
-        if (top == null) {
-            System.out.println("Stack is empty. Cannot peak.");
-            return -1;
+        if (size == 0) {
+            throw new EmptyStackException();
         }
-        return top.value;
+        return topCount == 0 ? top.below.values[top.belowCount - 1] : top.values[topCount - 1];
+    }
+
+    /**
+     * Gets the number of elements in the stack.
+     *
+     * @return The number of elements.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the stack is empty.
+     *
+     * @return True if the stack has no elements.
+     */
+    public boolean isEmpty() {
+        return size == 0;
     }
 
     /**
-     * Gets the visual representation of the stack.
+     * Captures the current contents of the stack in O(1).
      *
-     * <p>This method creates a visual representation of the stack, displaying each element
-     * enclosed in square brackets on a new line. The representation is returned as a string.</p>
+     * <p>Only the top chunk is marked, by raising the number of its slots that versions see to the current
+     * count; the chunks below it are full and are marked when a pop uncovers them.</p>
      *
-     * @return The visual representation of the stack.
+     * @return The version.
      */
     @Override
-    public String getVisualRepresentation() {
-        StringBuilder visualRepresentation = new StringBuilder("");
-        Element current = top;
+    public Object captureVersion() {
+        versionEvents++;
+        if (top != null && topCount > top.seen) {
+            top.seen = topCount;
+        }
+        return new Version(top, topCount, size);
+    }
+
+    /**
+     * Restores a captured version in O(1).
+     *
+     * <p>Versions captured after the restored one may see more of its top chunk than it does, so the whole
+     * chunk is treated as seen and the first push after restoring copies it.</p>
+     *
+     * @param version The version, as returned by {@link #captureVersion()}.
+     */
+    @Override
+    public void restoreVersion(Object version) {
+        Version restored = (Version) version;
+        top = restored.top;
+        topCount = restored.topCount;
+        size = restored.size;
+        versionEvents++;
+        if (top != null) {
+            top.seen = top.values.length;
+        }
+        markModified();
+    }
 
-        while (current != null) {
-            visualRepresentation.append("[").append(current.value).append("] \n");
-            current = current.next;
+    @Override
+    void writeSnapshot(Snapshot.Target target) throws IOException {
+        // From the bottom to the top, the order in which the elements were pushed
+        IntBuffer out = target.open(size, size);
+        int end = size;
+        int count = topCount;
+        for (Chunk chunk = top; chunk != null; count = chunk.belowCount, chunk = chunk.below) {
+            end -= count;
+            out.position(end);
+            out.put(chunk.values, 0, count);
         }
+        out.position(size);
+    }
 
-        return visualRepresentation.toString();
+    @Override
+    void readSnapshot(IntBuffer in, int size) {
+        for (int remaining = size; remaining > 0; remaining -= topCount) {
+            top = new Chunk(CHUNK_SIZE, top, topCount);
+            topCount = Math.min(remaining, CHUNK_SIZE);
+            in.get(top.values, 0, topCount);
+        }
+        this.size = size;
+        markModified();
+    }
+
+    /**
+     * Writes the visual representation of the stack.
+     *
+     * <p>This method streams a visual representation of the stack, displaying each element
+     * enclosed in square brackets on a new line, starting from the top. Elements above and below
+     * the viewport are replaced by a count of how many were skipped.</p>
+     *
+     * @param out The destination the representation is streamed into.
+     * @param viewport The range of elements to render, counted from the top.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    @Override
+    public void writeVisualRepresentation(Appendable out, Viewport viewport) throws IOException {
+        int offset = Math.min(viewport.getOffset(), size);
+        int end = Math.min(viewport.getEnd(), size);
+        if (offset > 0) {
+            out.append("... (");
+            appendValue(out, offset);
+            out.append(" more above)\n");
+        }
+
+        // Skip whole chunks down to the first element in the viewport, then walk down from it
+        Chunk chunk = top;
+        int count = topCount;
+        int skipped = offset;
+        while (chunk != null && skipped >= count) {
+            skipped -= count;
+            count = chunk.belowCount;
+            chunk = chunk.below;
+        }
+        int index = count - 1 - skipped;
+        for (int i = offset; i < end; i++) {
+            if (index < 0) {
+                index = chunk.belowCount - 1;
+                chunk = chunk.below;
+            }
+            out.append('[');
+            appendValue(out, chunk.values[index--]);
+            out.append("] \n");
+        }
+
+        if (end < size) {
+            out.append("... (");
+            appendValue(out, size - end);
+            out.append(" more below)\n");
+        }
     }
 }
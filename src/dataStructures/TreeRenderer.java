@@ -0,0 +1,259 @@
+package dataStructures;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Writes the visual representation shared by all binary search trees.
+ *
+ * <p>Nodes are written in pre-order, one row each, as the value in brackets indented by two spaces per level.
+ * The walk keeps an explicit stack of nodes and their depths instead of recursing, so unbalanced trees of any
+ * depth can be rendered. Only the rows inside the viewport are written, with a marker for the rows above and
+ * below it, and the walk never descends below the viewport depth: a node whose children are hidden is shown
+ * with the number of nodes beneath it.</p>
+ *
+ * <p>Every tree records the size of each subtree, so a subtree that lies entirely above the viewport is skipped
+ * in one step instead of being walked row by row. That is exact whenever the whole subtree is within the
+ * viewport depth, which holds if its size is at most the number of levels left, since a subtree is never taller
+ * than it has nodes. Paging deep into a large tree therefore walks only the nodes on the way to the first
+ * visible row.</p>
+ *
+ * <p>Trees of linked nodes are walked through a {@link TreeSpliterator.Shape}; trees that address their nodes
+ * by index, such as {@link ArenaTree}, through an {@link IndexShape}, which keeps the indexes in an int stack
+ * so the walk allocates nothing per node. Both go through the same walk.</p>
+ */
+final class TreeRenderer {
+    private TreeRenderer() {
+    }
+
+    /**
+     * Gives the renderer access to the nodes of a tree that addresses them by index, with 0 standing for no node.
+     */
+    interface IndexShape {
+        int left(int node);
+
+        int right(int node);
+
+        int value(int node);
+
+        int size(int node);
+    }
+
+    /**
+     * Writes a tree.
+     *
+     * @param out The destination the representation is streamed into.
+     * @param shape The access to the nodes.
+     * @param root The root of the tree, or null for an empty tree.
+     * @param viewport The rows and levels of the tree to render.
+     * @param <N> The type of the tree nodes.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    static <N> void write(Appendable out, TreeSpliterator.Shape<N> shape, N root, Viewport viewport)
+            throws IOException {
+        write(out, shape, root, viewport, 1, 0);
+    }
+
+    /**
+     * Writes a tree with the values in a range highlighted by a "*" after their brackets.
+     *
+     * @param out The destination the representation is streamed into.
+     * @param shape The access to the nodes.
+     * @param root The root of the tree, or null for an empty tree.
+     * @param viewport The rows and levels of the tree to render.
+     * @param low The smallest highlighted value.
+     * @param high The largest highlighted value; nothing is highlighted if it is less than {@code low}.
+     * @param <N> The type of the tree nodes.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    static <N> void write(Appendable out, TreeSpliterator.Shape<N> shape, N root, Viewport viewport, int low,
+                          int high) throws IOException {
+        if (root != null) {
+            walk(out, new LinkedWalk<>(shape, root), viewport, low, high);
+        }
+    }
+
+    /**
+     * Writes a tree whose nodes are addressed by index.
+     *
+     * @param out The destination the representation is streamed into.
+     * @param shape The access to the nodes.
+     * @param root The index of the root of the tree, or 0 for an empty tree.
+     * @param viewport The rows and levels of the tree to render.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    static void write(Appendable out, IndexShape shape, int root, Viewport viewport) throws IOException {
+        if (root != 0) {
+            walk(out, new IndexedWalk(shape, root), viewport, 1, 0);
+        }
+    }
+
+    private static void walk(Appendable out, Walk walk, Viewport viewport, int low, int high) throws IOException {
+        int offset = viewport.getOffset();
+        int end = viewport.getEnd();
+        int maxDepth = viewport.getDepth();
+        if (offset > 0) {
+            out.append("... (");
+            DataStructure.appendValue(out, offset);
+            out.append(" rows above)\n");
+        }
+
+        int row = 0;
+        while (walk.top > 0) {
+            if (row == end) {
+                out.append("... (more rows below)\n");
+                break;
+            }
+
+            walk.pop();
+            int depth = walk.depths[walk.top];
+            int size = walk.size();
+            if ((long) row + size <= offset && (long) depth + size <= maxDepth) {
+                row += size;
+                continue;
+            }
+
+            boolean expanded = depth + 1 < maxDepth;
+
+            if (row >= offset) {
+                for (int i = 0; i < depth; i++) {
+                    out.append("  ");
+                }
+                out.append('[');
+                int value = walk.value();
+                DataStructure.appendValue(out, value);
+                out.append(']');
+                if (value >= low && value <= high) {
+                    out.append('*');
+                }
+                if (!expanded && size > 1) {
+                    out.append(" ... (");
+                    DataStructure.appendValue(out, size - 1);
+                    out.append(" hidden)");
+                }
+                out.append('\n');
+            }
+            row++;
+
+            if (expanded) {
+                walk.pushChildren(depth + 1);
+            }
+        }
+    }
+
+    /**
+     * The stack of nodes still to be written, with the depth of each.
+     */
+    private abstract static class Walk {
+        int[] depths = new int[16];
+        int top;
+
+        /**
+         * Removes the node on top of the stack and makes it the current node.
+         */
+        abstract void pop();
+
+        abstract int value();
+
+        abstract int size();
+
+        /**
+         * Pushes the children of the current node, the right one first so the left one is written next.
+         *
+         * @param depth The depth of the children.
+         */
+        abstract void pushChildren(int depth);
+    }
+
+    private static final class LinkedWalk<N> extends Walk {
+        private final TreeSpliterator.Shape<N> shape;
+        private Object[] nodes = new Object[16];
+        private N current;
+
+        LinkedWalk(TreeSpliterator.Shape<N> shape, N root) {
+            this.shape = shape;
+            nodes[0] = root;
+            top = 1;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void pop() {
+            current = (N) nodes[--top];
+            nodes[top] = null;
+        }
+
+        @Override
+        int value() {
+            return shape.value(current);
+        }
+
+        @Override
+        int size() {
+            return shape.size(current);
+        }
+
+        @Override
+        void pushChildren(int depth) {
+            if (top + 2 > nodes.length) {
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                depths = Arrays.copyOf(depths, depths.length * 2);
+            }
+            N right = shape.right(current);
+            if (right != null) {
+                nodes[top] = right;
+                depths[top++] = depth;
+            }
+            N left = shape.left(current);
+            if (left != null) {
+                nodes[top] = left;
+                depths[top++] = depth;
+            }
+        }
+    }
+
+    private static final class IndexedWalk extends Walk {
+        private final IndexShape shape;
+        private int[] nodes = new int[16];
+        private int current;
+
+        IndexedWalk(IndexShape shape, int root) {
+            this.shape = shape;
+            nodes[0] = root;
+            top = 1;
+        }
+
+        @Override
+        void pop() {
+            current = nodes[--top];
+        }
+
+        @Override
+        int value() {
+            return shape.value(current);
+        }
+
+        @Override
+        int size() {
+            return shape.size(current);
+        }
+
+        @Override
+        void pushChildren(int depth) {
+            if (top + 2 > nodes.length) {
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                depths = Arrays.copyOf(depths, depths.length * 2);
+            }
+            int right = shape.right(current);
+            if (right != 0) {
+                nodes[top] = right;
+                depths[top++] = depth;
+            }
+            int left = shape.left(current);
+            if (left != 0) {
+                nodes[top] = left;
+                depths[top++] = depth;
+            }
+        }
+    }
+}
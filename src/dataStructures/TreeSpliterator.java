@@ -0,0 +1,164 @@
+package dataStructures;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * A splittable in-order walk over the values of a binary search tree of linked nodes.
+ *
+ * <p>The walk keeps an explicit stack of pending work instead of recursing, so trees of any depth can be
+ * walked. Each entry is either a single node, whose value is next in line, or a whole subtree still to be
+ * walked; the top of the stack is the front of the encounter order. Advancing expands a subtree down its left
+ * spine, so the stack never holds more entries than twice the depth of the tree.</p>
+ *
+ * <p>Splitting hands the front half of the stack to a new spliterator. A stack holding one subtree is first
+ * expanded by one level into its left subtree, its root and its right subtree, so a balanced tree splits into
+ * halves of nearly equal size and parallel streams divide the work evenly. Every tree records the size of
+ * each subtree, so the halves report exact sizes.</p>
+ *
+ * @param <N> The type of the tree nodes.
+ */
+final class TreeSpliterator<N> implements Spliterator.OfInt {
+    /**
+     * Gives the walk access to the nodes of one kind of tree.
+     *
+     * @param <N> The type of the tree nodes.
+     */
+    interface Shape<N> {
+        N left(N node);
+
+        N right(N node);
+
+        int value(N node);
+
+        /**
+         * Gets the number of values in a subtree.
+         *
+         * @param node The root of the subtree.
+         * @return The number of values.
+         */
+        int size(N node);
+    }
+
+    private final Shape<N> shape;
+    private final int characteristics;
+    private Object[] nodes;
+    private boolean[] whole;
+    private int count;
+    private long estimate;
+
+    /**
+     * Creates a walk over a whole tree.
+     *
+     * @param shape The access to the nodes.
+     * @param root The root of the tree, or null for an empty tree.
+     * @param size The number of values in the tree.
+     * @param characteristics {@link #IMMUTABLE} if the nodes never change, or 0.
+     */
+    TreeSpliterator(Shape<N> shape, N root, int size, int characteristics) {
+        this.shape = shape;
+        this.characteristics = characteristics | ORDERED | SORTED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+        this.nodes = new Object[16];
+        this.whole = new boolean[16];
+        this.estimate = size;
+        if (root != null) {
+            push(root, true);
+        }
+    }
+
+    private TreeSpliterator(TreeSpliterator<N> parent, Object[] nodes, boolean[] whole, long estimate) {
+        this.shape = parent.shape;
+        this.characteristics = parent.characteristics;
+        this.nodes = nodes;
+        this.whole = whole;
+        this.count = nodes.length;
+        this.estimate = estimate;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(IntConsumer action) {
+        while (count > 0) {
+            N node = (N) nodes[--count];
+            nodes[count] = null;
+            if (!whole[count]) {
+                estimate--;
+                action.accept(shape.value(node));
+                return true;
+            }
+            // Queue the right subtree and the node itself at every level of the left spine
+            for (; node != null; node = shape.left(node)) {
+                if (shape.right(node) != null) {
+                    push(shape.right(node), true);
+                }
+                push(node, false);
+            }
+        }
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Spliterator.OfInt trySplit() {
+        if (count == 1 && whole[0]) {
+            N node = (N) nodes[0];
+            count = 0;
+            nodes[0] = null;
+            if (shape.right(node) != null) {
+                push(shape.right(node), true);
+            }
+            push(node, false);
+            if (shape.left(node) != null) {
+                push(shape.left(node), true);
+            }
+        }
+        if (count < 2) {
+            return null;
+        }
+
+        // The entries above the middle of the stack come first in encounter order
+        int keep = count / 2;
+        Object[] prefixNodes = Arrays.copyOfRange(nodes, keep, count);
+        boolean[] prefixWhole = Arrays.copyOfRange(whole, keep, count);
+        Arrays.fill(nodes, keep, count, null);
+        count = keep;
+
+        long prefixEstimate = 0;
+        for (int i = 0; i < prefixNodes.length; i++) {
+            prefixEstimate += prefixWhole[i] ? shape.size((N) prefixNodes[i]) : 1;
+        }
+        estimate -= prefixEstimate;
+        return new TreeSpliterator<>(this, prefixNodes, prefixWhole, prefixEstimate);
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return characteristics;
+    }
+
+    /**
+     * Gets the order of the values, which is their natural order.
+     *
+     * @return Null, for natural order.
+     */
+    @Override
+    public Comparator<? super Integer> getComparator() {
+        return null;
+    }
+
+    private void push(N node, boolean isWhole) {
+        if (count == nodes.length) {
+            nodes = Arrays.copyOf(nodes, count * 2);
+            whole = Arrays.copyOf(whole, count * 2);
+        }
+        nodes[count] = node;
+        whole[count++] = isWhole;
+    }
+}
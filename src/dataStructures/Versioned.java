@@ -0,0 +1,25 @@
+package dataStructures;
+
+/**
+ * A data structure whose contents can be captured as an immutable version and restored later.
+ *
+ * <p>Implementations share structure between versions instead of copying, so capturing a version costs O(1)
+ * time and at most O(log n) extra memory as the data structure changes afterwards, and restoring one is O(1).
+ * This is what makes undo and redo affordable for every operation of a session.</p>
+ */
+public interface Versioned {
+    /**
+     * Captures the current contents of the data structure.
+     *
+     * @return An opaque handle that only {@link #restoreVersion(Object)} of the same data structure understands.
+     */
+    Object captureVersion();
+
+    /**
+     * Replaces the contents of the data structure with a version captured earlier. No events are reported;
+     * the modification count is bumped once.
+     *
+     * @param version A handle returned by {@link #captureVersion()} on this data structure.
+     */
+    void restoreVersion(Object version);
+}
@@ -0,0 +1,135 @@
+package dataStructures;
+
+/**
+ * The Viewport class describes which part of a data structure should be rendered.
+ *
+ * <p>Linear structures show {@code size} elements starting at {@code offset}. Trees show {@code size}
+ * pre-order rows starting at {@code offset}, and never descend below {@code depth} levels; deeper
+ * subtrees are collapsed into a single marker. A viewport is immutable, so paging and zooming
+ * return new instances.</p>
+ */
+public final class Viewport {
+    /**
+     * A viewport that covers the whole data structure.
+     */
+    public static final Viewport FULL = new Viewport(0, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final int offset;
+    private final int size;
+    private final int depth;
+
+    /**
+     * Constructs a viewport.
+     *
+     * @param offset The index of the first element or row to show.
+     * @param size The maximum number of elements or rows to show.
+     * @param depth The maximum number of tree levels to show.
+     */
+    public Viewport(int offset, int size, int depth) {
+        if (offset < 0 || size < 1 || depth < 1) {
+            throw new IllegalArgumentException("Viewport offset must be non-negative and its size and depth positive.");
+        }
+        this.offset = offset;
+        this.size = size;
+        this.depth = depth;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Gets the index one past the last element or row shown, saturating instead of overflowing.
+     *
+     * @return The exclusive end of the window.
+     */
+    public int getEnd() {
+        return (int) Math.min(Integer.MAX_VALUE, (long) offset + size);
+    }
+
+    /**
+     * Checks whether this viewport covers the whole data structure.
+     *
+     * @return True if nothing is hidden by this viewport.
+     */
+    public boolean isFull() {
+        return offset == 0 && size == Integer.MAX_VALUE && depth == Integer.MAX_VALUE;
+    }
+
+    /**
+     * Gets the viewport for the next page.
+     *
+     * @return A viewport moved forward by one page.
+     */
+    public Viewport next() {
+        return new Viewport(getEnd(), size, depth);
+    }
+
+    /**
+     * Gets the viewport for the previous page.
+     *
+     * @return A viewport moved back by one page, stopping at the start.
+     */
+    public Viewport previous() {
+        return new Viewport(Math.max(0, offset - size), size, depth);
+    }
+
+    /**
+     * Gets a viewport showing a different number of elements or rows per page.
+     *
+     * @param newSize The number of elements or rows per page.
+     * @return A viewport with the same offset and depth.
+     */
+    public Viewport withSize(int newSize) {
+        return new Viewport(offset, newSize, depth);
+    }
+
+    /**
+     * Gets a viewport showing a different number of tree levels.
+     *
+     * @param newDepth The number of tree levels to show.
+     * @return A viewport with the same offset and size.
+     */
+    public Viewport withDepth(int newDepth) {
+        return new Viewport(offset, size, newDepth);
+    }
+
+    /**
+     * Gets a viewport with the same page size and depth starting at the first element.
+     *
+     * @return A viewport moved back to the start.
+     */
+    public Viewport rewind() {
+        return new Viewport(0, size, depth);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Viewport)) {
+            return false;
+        }
+        Viewport viewport = (Viewport) other;
+        return offset == viewport.offset && size == viewport.size && depth == viewport.depth;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * offset + size) + depth;
+    }
+
+    @Override
+    public String toString() {
+        return isFull() ? "full" : "offset " + offset + ", size " + size + ", depth " + depth;
+    }
+}
@@ -1,6 +1,23 @@
 package main;
 
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.nio.file.Paths;
+
+import javax.management.JMException;
+
+import dataStructures.DataStructure;
+import dataStructures.Journal;
 import dataStructures.LinkedList;
+import visualisation.BatchRunner;
+import visualisation.SessionServer;
 import visualisation.UserInterface;
 import visualisation.VisualisationEngine;
 
@@ -8,24 +25,200 @@ import visualisation.VisualisationEngine;
  * The Main class serves as the entry point for the Data Structure Visualiser program.
  *
  * <p>This class initializes a linked list data structure, creates instances of the VisualisationEngine
- * and UserInterface, and starts the user interface for interacting with and visualizing various data structures.</p>
+ * and UserInterface, and starts the user interface for interacting with and visualizing various data structures.
+ * With the {@code --batch} option it instead runs a script of commands without any interaction, and with the
+ * {@code --journal} option every change is journaled so that the data structure survives a crash. With the
+ * {@code --metrics} option operations are timed, and the metrics can be read with the stats command or over
+ * JMX. With the {@code --server} option the process serves any number of interactive sessions over TCP
+ * instead, each with a data structure of its own.</p>
  */
 public class Main {
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+    private static final long DEFAULT_DURABILITY_MILLIS = 50;
+    private static final int DEFAULT_PORT = 7878;
+
     /**
      * The main method, serving as the entry point for the Data Structure Visualiser program.
      *
      * <p>This method creates an instance of a linked list, sets up the VisualisationEngine with the initial
      * data structure, and initializes the UserInterface for user interaction. It then starts the user interface.</p>
      *
-     * @param args Command-line arguments (not used in this program).
+     * @param args Command-line arguments. {@code --batch [file]} runs the commands in the file, or on standard
+     *             input if no file is given, instead of starting the interactive interface.
+     *             {@code --journal <file>} records every change in the journal file, first recovering the data
+     *             structure from it if it exists, and {@code --durability <ms>} sets how long a change may wait
+     *             before it is forced to disk (50 ms by default, 0 to force every change).
+     *             {@code --metrics} times every operation and registers the metrics as a JMX MBean.
+     *             {@code --server [port]} serves interactive sessions on the loopback interface, on port 7878
+     *             if no port is given, until the process is stopped; it cannot be combined with a journal.
      */
     public static void main(String[] args) {
-        LinkedList linkedList = new LinkedList();
+        boolean batch = false;
+        String scriptFile = null;
+        String journalFile = null;
+        long durabilityMillis = DEFAULT_DURABILITY_MILLIS;
+        boolean metrics = false;
+        int serverPort = -1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--batch")) {
+                batch = true;
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    scriptFile = args[++i];
+                }
+            } else if (args[i].equals("--journal") && i + 1 < args.length) {
+                journalFile = args[++i];
+            } else if (args[i].equals("--durability") && i + 1 < args.length) {
+                durabilityMillis = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--metrics")) {
+                metrics = true;
+            } else if (args[i].equals("--server")) {
+                serverPort = DEFAULT_PORT;
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    serverPort = Integer.parseInt(args[++i]);
+                }
+            } else {
+                System.err.println("Unknown option: " + args[i]);
+                System.exit(2);
+            }
+        }
+
+        if (serverPort >= 0) {
+            if (batch || journalFile != null) {
+                System.err.println("--server cannot be combined with --batch or --journal.");
+                System.exit(2);
+            }
+            runServer(serverPort, metrics);
+            return;
+        }
+
+        Journal journal = null;
+        DataStructure initialDataStructure = new LinkedList();
+        if (journalFile != null) {
+            journal = openJournal(journalFile, durabilityMillis, !batch);
+            if (journal.getDataStructure() != null) {
+                initialDataStructure = journal.getDataStructure();
+            }
+        }
+
+        if (batch) {
+            runBatch(initialDataStructure, journal, scriptFile, metrics);
+        } else {
+            VisualisationEngine visualisationEngine = new VisualisationEngine(initialDataStructure);
+            startJournal(visualisationEngine, journal);
+            startMetrics(visualisationEngine, metrics);
+            UserInterface userInterface = new UserInterface(visualisationEngine);
+
+            userInterface.start();
+        }
+        closeJournal(journal);
+    }
+
+    /**
+     * Opens the journal, replaying it if it exists.
+     *
+     * @param journalFile The journal file.
+     * @param durabilityMillis How long a change may wait before it is forced to disk.
+     * @param verbose Whether to report what was recovered.
+     * @return The open journal.
+     */
+    private static Journal openJournal(String journalFile, long durabilityMillis, boolean verbose) {
+        long startTime = System.nanoTime();
+        try {
+            Journal journal = Journal.open(Paths.get(journalFile), durabilityMillis);
+            if (verbose && journal.getDataStructure() != null) {
+                long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+                System.out.println("Recovered the " + journal.getDataStructure().getName() + " from " + journalFile
+                        + ", replaying " + journal.getReplayedCount() + " operations in " + elapsedMillis + " ms.");
+            }
+            return journal;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not open the journal: " + e.getMessage());
+            System.exit(1);
+            return null;
+        }
+    }
+
+    private static void startJournal(VisualisationEngine visualisationEngine, Journal journal) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            visualisationEngine.setJournal(journal);
+        } catch (IOException e) {
+            System.err.println("Could not start the journal: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void startMetrics(VisualisationEngine visualisationEngine, boolean metrics) {
+        if (!metrics) {
+            return;
+        }
+        try {
+            visualisationEngine.enableMetrics().register();
+        } catch (JMException e) {
+            // The stats command still works without JMX
+            System.err.println("Could not register the metrics with JMX: " + e.getMessage());
+        }
+    }
 
-        VisualisationEngine visualisationEngine = new VisualisationEngine(linkedList);
-        UserInterface userInterface = new UserInterface(visualisationEngine);
+    private static void closeJournal(Journal journal) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Could not write the end of the journal: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Serves interactive sessions until the process is stopped.
+     *
+     * <p>Sessions time their operations if metrics are on, but the metrics are not registered with JMX, since
+     * there is one set per session.</p>
+     *
+     * @param port The port to listen on.
+     * @param metrics Whether sessions time operations.
+     */
+    private static void runServer(int port, boolean metrics) {
+        try {
+            SessionServer server = new SessionServer(port, metrics);
+            System.out.println("Serving sessions on " + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+                    + server.getPort() + " using " + (server.usesVirtualThreads() ? "virtual" : "platform")
+                    + " threads.");
+            server.run();
+        } catch (IOException e) {
+            System.err.println("Server failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
 
-        userInterface.start();
+    /**
+     * Runs a script of commands against the initial data structure.
+     *
+     * <p>All output goes through one large buffer over standard output, which is flushed when the script ends.</p>
+     *
+     * @param initialDataStructure The initial data structure.
+     * @param journal The journal to record changes in, or null.
+     * @param scriptFile The script to run, or null to read commands from standard input.
+     * @param metrics Whether to time operations.
+     */
+    private static void runBatch(DataStructure initialDataStructure, Journal journal, String scriptFile,
+            boolean metrics) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out)),
+                OUTPUT_BUFFER_SIZE);
+        VisualisationEngine visualisationEngine = new VisualisationEngine(initialDataStructure, out, false);
+        startJournal(visualisationEngine, journal);
+        startMetrics(visualisationEngine, metrics);
 
+        try (InputStream in = scriptFile == null ? System.in : new FileInputStream(scriptFile)) {
+            new BatchRunner(visualisationEngine, in, out).run();
+        } catch (IOException e) {
+            System.err.println("Batch run failed: " + e.getMessage());
+            System.exit(1);
+        }
     }
 }
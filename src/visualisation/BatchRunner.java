@@ -0,0 +1,331 @@
+package visualisation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Paths;
+
+import dataStructures.ArenaTree;
+import dataStructures.BinaryTree;
+import dataStructures.DataStructure;
+import dataStructures.DirectedGraph;
+import dataStructures.IntegerFile;
+import dataStructures.LinkedList;
+import dataStructures.NoOpEventSink;
+import dataStructures.Snapshot;
+
+/**
+ * Headless runner that executes a script of Data Structure Visualiser commands.
+ *
+ * <p>Commands use the same names as the interactive interface, but take their arguments inline, for
+ * example {@code choose 4 add 10 add 5 remove 10 display}. Commands are separated by whitespace and a
+ * '#' starts a comment that runs to the end of the line. No prompts or per-operation confirmations are
+ * printed: the only output is what the script asks for, written to a single buffered writer that is
+ * flushed when the script ends. Malformed commands are reported with their line number and skipped.</p>
+ */
+public class BatchRunner {
+    private final VisualisationEngine visualisationEngine;
+    private final CommandTokenizer tokenizer;
+    private final Writer out;
+
+    /**
+     * Constructs a BatchRunner.
+     *
+     * @param visualisationEngine The Visualisation Engine the commands act on. It should write to {@code out}.
+     * @param in The input containing the commands.
+     * @param out The output that results and errors are written to.
+     */
+    public BatchRunner(VisualisationEngine visualisationEngine, InputStream in, Writer out) {
+        this.visualisationEngine = visualisationEngine;
+        this.tokenizer = new CommandTokenizer(in);
+        this.out = out;
+    }
+
+    /**
+     * Runs every command in the input, stopping early at an 'exit' command.
+     *
+     * <p>Operations are reported to a {@link NoOpEventSink}, so the data structures do no work at all
+     * to describe them.</p>
+     *
+     * @throws IOException If reading the commands or writing the output fails.
+     */
+    public void run() throws IOException {
+        visualisationEngine.setEventSink(NoOpEventSink.INSTANCE);
+        try {
+            String command;
+            while ((command = tokenizer.nextWord()) != null) {
+                try {
+                    if (!execute(command)) {
+                        break;
+                    }
+                } catch (IllegalArgumentException e) {
+                    reportError("'" + command + "': " + e.getMessage());
+                }
+            }
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Executes a single command, reading its arguments from the tokenizer.
+     *
+     * @return False if the command ends the script.
+     */
+    private boolean execute(String command) throws IOException {
+        switch (command.toLowerCase()) {
+            case "choose":
+                chooseDataStructure();
+                break;
+            case "add":
+            case "push":
+            case "enqueue":
+                visualisationEngine.addNode(tokenizer.nextInt());
+                break;
+            case "remove":
+            case "pop":
+            case "dequeue":
+                if (UserInterface.removesWithoutValue(visualisationEngine.getDataStructure())) {
+                    visualisationEngine.removeNode(0);
+                } else {
+                    visualisationEngine.removeNode(tokenizer.nextInt());
+                }
+                break;
+            case "add-edge":
+            case "remove-edge":
+                changeEdge(command.equalsIgnoreCase("add-edge"));
+                visualisationEngine.recordChange();
+                break;
+            case "bfs":
+            case "dfs":
+                int start = tokenizer.nextInt();
+                out.write(UserInterface.describeSearch(selectedGraph(), start, command.equalsIgnoreCase("dfs"))
+                        + System.lineSeparator());
+                break;
+            case "bfs-levels":
+                int levelStart = tokenizer.nextInt();
+                selectedGraph();
+                visualisationEngine.displayLevels(levelStart);
+                break;
+            case "threads":
+                visualisationEngine.setParallelism(tokenizer.nextInt());
+                break;
+            case "degree":
+                int vertex = tokenizer.nextInt();
+                out.write(UserInterface.describeDegree(selectedGraph(), vertex) + System.lineSeparator());
+                break;
+            case "display":
+                visualisationEngine.displayVisualisation();
+                break;
+            case "traverse":
+                visualisationEngine.traverseAndVisualize();
+                break;
+            case "viewport":
+                visualisationEngine.toggleViewport();
+                break;
+            case "next":
+                visualisationEngine.nextPage();
+                break;
+            case "prev":
+                visualisationEngine.previousPage();
+                break;
+            case "zoom":
+                visualisationEngine.setPageSize(tokenizer.nextInt());
+                break;
+            case "levels":
+                visualisationEngine.setDepth(tokenizer.nextInt());
+                break;
+            case "cache":
+                RenderCache renderCache = visualisationEngine.getRenderCache();
+                out.write("Render cache: " + renderCache.getHits() + " hits, " + renderCache.getMisses()
+                        + " misses, " + renderCache.size() + " entries cached." + System.lineSeparator());
+                break;
+            case "stats":
+                out.write(UserInterface.describeMetrics(visualisationEngine.getMetrics()));
+                break;
+            case "bench":
+                runBenchmark();
+                break;
+            case "save":
+                saveSnapshot();
+                break;
+            case "load":
+                loadSnapshot();
+                break;
+            case "import":
+                importValues();
+                break;
+            case "compact":
+                if (visualisationEngine.getJournal() == null) {
+                    throw new IllegalArgumentException("there is no journal to compact.");
+                }
+                visualisationEngine.getJournal().compact();
+                break;
+            case "undo":
+                if (!visualisationEngine.undo()) {
+                    throw new IllegalArgumentException("nothing to undo.");
+                }
+                break;
+            case "redo":
+                if (!visualisationEngine.redo()) {
+                    throw new IllegalArgumentException("nothing to redo.");
+                }
+                break;
+            case "goto":
+                int version = tokenizer.nextInt();
+                if (!visualisationEngine.goToVersion(version)) {
+                    throw new IllegalArgumentException("version " + version + " is not available.");
+                }
+                break;
+            case "kth":
+                int position = tokenizer.nextInt();
+                queryTree(UserInterface.describeSelect(selectedTree(), position),
+                        UserInterface.selectHighlight(selectedTree(), position));
+                break;
+            case "rank":
+                int ranked = tokenizer.nextInt();
+                queryTree(UserInterface.describeRank(selectedTree(), ranked), UserInterface.rankHighlight(ranked));
+                break;
+            case "range":
+                int low = tokenizer.nextInt();
+                int high = tokenizer.nextInt();
+                queryTree(UserInterface.describeRange(selectedTree(), low, high), new int[] {low, high});
+                break;
+            case "footprint":
+                if (visualisationEngine.getDataStructure() instanceof ArenaTree) {
+                    out.write(UserInterface.describeFootprint((ArenaTree) visualisationEngine.getDataStructure())
+                            + System.lineSeparator());
+                } else if (UserInterface.isIndexedList(visualisationEngine.getDataStructure())) {
+                    out.write(UserInterface.describeFootprint((LinkedList) visualisationEngine.getDataStructure())
+                            + System.lineSeparator());
+                } else {
+                    throw new IllegalArgumentException("only available for an arena tree or an indexed list.");
+                }
+                break;
+            case "back":
+                // There is no menu to go back to in a script
+                break;
+            case "exit":
+                return false;
+            default:
+                reportError("unknown command '" + command + "'.");
+        }
+        return true;
+    }
+
+    private void chooseDataStructure() throws IOException {
+        String choice = tokenizer.nextWord();
+        DataStructure selectedDataStructure = choice == null ? null : UserInterface.createDataStructure(choice);
+        if (selectedDataStructure == null) {
+            throw new IllegalArgumentException("invalid data structure choice " + choice + ".");
+        }
+        visualisationEngine.setDataStructure(selectedDataStructure);
+    }
+
+    private void saveSnapshot() throws IOException {
+        String file = requireFile();
+        try {
+            Snapshot.save(visualisationEngine.getDataStructure(), Paths.get(file));
+        } catch (IOException e) {
+            reportError("could not save to " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void loadSnapshot() throws IOException {
+        String file = requireFile();
+        try {
+            visualisationEngine.setDataStructure(Snapshot.load(Paths.get(file)));
+        } catch (IOException e) {
+            reportError("could not load " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs a workload given as {@code bench <add> <remove> <traverse> <distribution> <keys> <operations>
+     * <warm-up> <file>}, where the file the results are appended to as CSV may be '-' to only print them.
+     */
+    private void runBenchmark() throws IOException {
+        int addWeight = tokenizer.nextInt();
+        int removeWeight = tokenizer.nextInt();
+        int traverseWeight = tokenizer.nextInt();
+        String distribution = tokenizer.nextWord();
+        int keys = tokenizer.nextInt();
+        int operations = tokenizer.nextInt();
+        int warmUp = tokenizer.nextInt();
+        String file = requireFile();
+        if (distribution == null) {
+            throw new IllegalArgumentException("expected a key distribution.");
+        }
+
+        Workload.Result result = visualisationEngine.runWorkload(new Workload(addWeight, removeWeight,
+                traverseWeight, Workload.Distribution.parse(distribution), keys, operations, warmUp,
+                Workload.DEFAULT_SEED));
+        out.write(result.getSummary());
+        if (!file.equals("-")) {
+            try {
+                result.appendCsv(Paths.get(file));
+            } catch (IOException e) {
+                reportError("could not write " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void importValues() throws IOException {
+        String file = requireFile();
+        int[] values;
+        try {
+            values = IntegerFile.read(Paths.get(file));
+        } catch (IOException e) {
+            reportError("could not import " + file + ": " + e.getMessage());
+            return;
+        }
+        visualisationEngine.bulkLoad(values);
+    }
+
+    private String requireFile() throws IOException {
+        String file = tokenizer.nextWord();
+        if (file == null) {
+            throw new IllegalArgumentException("expected a file name.");
+        }
+        return file;
+    }
+
+    private void changeEdge(boolean adding) throws IOException {
+        int from = tokenizer.nextInt();
+        int to = tokenizer.nextInt();
+        if (adding) {
+            selectedGraph().addEdge(from, to);
+        } else {
+            selectedGraph().removeEdge(from, to);
+        }
+    }
+
+    /**
+     * Gets the selected data structure, which must be a directed graph.
+     *
+     * <p>The arguments of a graph command are read before this is called, so a misplaced command does not
+     * leave them behind to be read as commands.</p>
+     */
+    private DirectedGraph selectedGraph() {
+        if (!(visualisationEngine.getDataStructure() instanceof DirectedGraph)) {
+            throw new IllegalArgumentException("only available for a directed graph.");
+        }
+        return (DirectedGraph) visualisationEngine.getDataStructure();
+    }
+
+    private BinaryTree selectedTree() {
+        if (!(visualisationEngine.getDataStructure() instanceof BinaryTree)) {
+            throw new IllegalArgumentException("only available for a binary tree.");
+        }
+        return (BinaryTree) visualisationEngine.getDataStructure();
+    }
+
+    private void queryTree(String description, int[] highlight) throws IOException {
+        out.write(description + System.lineSeparator());
+        visualisationEngine.displayHighlighted(highlight[0], highlight[1]);
+    }
+
+    private void reportError(String message) throws IOException {
+        out.write("Line " + tokenizer.getLine() + ": " + message + System.lineSeparator());
+    }
+}
@@ -0,0 +1,145 @@
+package visualisation;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The CommandTokenizer class splits a stream of batch commands into words and integers.
+ *
+ * <p>Input is read in large blocks and scanned byte by byte. Words are separated by any whitespace, so
+ * several commands may share a line, and everything from a '#' to the end of the line is a comment.
+ * Integers are parsed straight from the bytes without creating intermediate strings. Input is expected
+ * to be ASCII.</p>
+ */
+class CommandTokenizer {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final StringBuilder word = new StringBuilder();
+    private int position;
+    private int limit;
+    private int line = 1;
+    private int tokenLine = 1;
+
+    /**
+     * Constructs a tokenizer reading from the specified input.
+     *
+     * @param in The input containing the commands.
+     */
+    CommandTokenizer(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next whitespace-separated word.
+     *
+     * @return The word, or null at the end of the input.
+     * @throws IOException If reading the input fails.
+     */
+    String nextWord() throws IOException {
+        int c = skipWhitespace();
+        if (c < 0) {
+            return null;
+        }
+
+        word.setLength(0);
+        while (c >= 0 && !isWhitespace(c)) {
+            word.append((char) c);
+            c = read();
+        }
+        return word.toString();
+    }
+
+    /**
+     * Reads the next word as a decimal integer.
+     *
+     * @return The parsed value.
+     * @throws IOException If reading the input fails.
+     * @throws IllegalArgumentException If the next word is missing or is not an integer.
+     */
+    int nextInt() throws IOException {
+        int c = skipWhitespace();
+        if (c < 0) {
+            throw new IllegalArgumentException("expected an integer but reached the end of the input");
+        }
+
+        boolean negative = c == '-';
+        if (negative) {
+            c = read();
+        }
+
+        long value = 0;
+        int digits = 0;
+        while (c >= '0' && c <= '9') {
+            // Saturate rather than overflow; the range check below rejects the value
+            value = Math.min(value * 10 + (c - '0'), (long) Integer.MAX_VALUE + 2);
+            digits++;
+            c = read();
+        }
+
+        if (digits == 0 || (c >= 0 && !isWhitespace(c))) {
+            // Discard the rest of the malformed word so that parsing can resume after it
+            while (c >= 0 && !isWhitespace(c)) {
+                c = read();
+            }
+            throw new IllegalArgumentException("expected an integer");
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("integer out of range");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Gets the line on which the most recently read word or integer started.
+     *
+     * @return The one-based line number.
+     */
+    int getLine() {
+        return tokenLine;
+    }
+
+    /**
+     * Skips whitespace and comments, returning the first byte of the next token.
+     */
+    private int skipWhitespace() throws IOException {
+        int c = read();
+        while (c >= 0) {
+            if (c == '#') {
+                while (c >= 0 && c != '\n') {
+                    c = read();
+                }
+            } else if (!isWhitespace(c)) {
+                break;
+            } else {
+                c = read();
+            }
+        }
+        tokenLine = line;
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        int c = buffer[position++] & 0xFF;
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+    }
+}
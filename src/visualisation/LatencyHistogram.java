@@ -0,0 +1,121 @@
+package visualisation;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of latencies in nanoseconds with logarithmic buckets, in the style of HdrHistogram.
+ *
+ * <p>Values below {@value #SUB_BUCKETS} get a bucket each. Above that, every power of two is split into
+ * {@value #SUB_BUCKETS} buckets of equal width, so a recorded value is known to within about 3% however
+ * large it is. Recording finds the bucket with a count of leading zeros and a shift, and increments a
+ * {@code long} in a fixed array: no allocation, no locking and no floating point.</p>
+ *
+ * <p>A histogram is recorded by one thread at a time. Other threads may read it, and then see counts that
+ * are recent but not necessarily consistent with each other.</p>
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private volatile long count;
+    private long total;
+    private long max;
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos The latency in nanoseconds; negative values, from a clock going backwards, count as 0.
+     */
+    void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts[indexOf(value)]++;
+        total += value;
+        if (value > max) {
+            max = value;
+        }
+        count++;
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Gets the largest value that falls into the same bucket as the values of a bucket.
+     */
+    private static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Gets the number of recorded latencies.
+     *
+     * @return The count.
+     */
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the mean of the recorded latencies.
+     *
+     * @return The mean in nanoseconds, or 0 if nothing was recorded.
+     */
+    double getMean() {
+        long recorded = count;
+        return recorded == 0 ? 0 : (double) total / recorded;
+    }
+
+    /**
+     * Gets the largest recorded latency.
+     *
+     * @return The maximum in nanoseconds, or 0 if nothing was recorded.
+     */
+    long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets a percentile of the recorded latencies.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The highest value equivalent to the latency at that percentile, in nanoseconds, or 0 if nothing
+     *         was recorded.
+     */
+    long getPercentile(double percentile) {
+        long recorded = count;
+        if (recorded == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * recorded));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Forgets every recorded latency.
+     */
+    void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        max = 0;
+        count = 0;
+    }
+}
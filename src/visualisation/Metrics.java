@@ -0,0 +1,205 @@
+package visualisation;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import dataStructures.AVLTree;
+import dataStructures.BinaryTree;
+import dataStructures.ConcurrentTree;
+import dataStructures.DataStructure;
+
+/**
+ * Latency histograms, operation counts and structural gauges for a {@link VisualisationEngine}.
+ *
+ * <p>The engine times each operation it performs on behalf of an interface: adding and removing values,
+ * traversing, rendering a representation that was not cached and displaying it. Gauges are sampled after
+ * every change, from values the data structures already keep, so sampling costs O(1). Metrics are off
+ * unless {@link VisualisationEngine#enableMetrics()} is called; until then the engine does not even read
+ * the clock.</p>
+ *
+ * <p>The metrics can be read with the stats command and, once {@link #register()} has been called, over
+ * JMX under the name {@value #OBJECT_NAME}.</p>
+ */
+public class Metrics implements MetricsMBean {
+    /**
+     * The name the metrics are registered under with the platform MBean server.
+     */
+    public static final String OBJECT_NAME = "visualisation:type=Metrics";
+
+    /**
+     * The operations that are timed.
+     */
+    public enum Timing {
+        ADD("add"),
+        REMOVE("remove"),
+        TRAVERSE("traverse"),
+        RENDER("render"),
+        DISPLAY("display");
+
+        private final String label;
+
+        Timing(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Gets the name of the operation as shown by the stats command and accepted over JMX.
+         *
+         * @return The lower-case name.
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Timing[] TIMINGS = Timing.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[TIMINGS.length];
+    private volatile String dataStructure = "";
+    private volatile int size;
+    private volatile int height = -1;
+    private volatile long lastRenderChars;
+
+    /**
+     * Constructs empty metrics.
+     */
+    public Metrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Records how long an operation took.
+     *
+     * @param timing The operation.
+     * @param nanos The time it took in nanoseconds.
+     */
+    void record(Timing timing, long nanos) {
+        histograms[timing.ordinal()].record(nanos);
+    }
+
+    /**
+     * Records how long rendering a representation took and how long the representation was.
+     *
+     * @param nanos The time it took in nanoseconds.
+     * @param chars The number of characters rendered.
+     */
+    void recordRender(long nanos, int chars) {
+        histograms[Timing.RENDER.ordinal()].record(nanos);
+        lastRenderChars = chars;
+    }
+
+    /**
+     * Samples the gauges from a data structure.
+     *
+     * @param source The data structure.
+     */
+    void sample(DataStructure source) {
+        dataStructure = source.getName();
+        size = source.size();
+        if (source instanceof BinaryTree) {
+            height = ((BinaryTree) source).height();
+        } else if (source instanceof AVLTree) {
+            height = ((AVLTree) source).height();
+        } else if (source instanceof ConcurrentTree) {
+            height = ((ConcurrentTree) source).height();
+        } else {
+            height = -1;
+        }
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server under {@value #OBJECT_NAME}.
+     *
+     * @throws JMException If they cannot be registered, for example because metrics are already registered.
+     */
+    public void register() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+    }
+
+    @Override
+    public String getDataStructure() {
+        return dataStructure;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public long getLastRenderChars() {
+        return lastRenderChars;
+    }
+
+    @Override
+    public String[] getOperations() {
+        String[] operations = new String[TIMINGS.length];
+        for (int i = 0; i < TIMINGS.length; i++) {
+            operations[i] = TIMINGS[i].getLabel();
+        }
+        return operations;
+    }
+
+    @Override
+    public long getCount(String operation) {
+        return histogramOf(operation).getCount();
+    }
+
+    @Override
+    public double getPercentileMicros(String operation, double percentile) {
+        return histogramOf(operation).getPercentile(percentile) / 1000.0;
+    }
+
+    private LatencyHistogram histogramOf(String operation) {
+        for (Timing timing : TIMINGS) {
+            if (timing.getLabel().equalsIgnoreCase(operation)) {
+                return histograms[timing.ordinal()];
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation '" + operation + "'.");
+    }
+
+    /**
+     * Gets all the metrics as text: a line per operation that was timed, with its count and the mean, median,
+     * 99th percentile and maximum of its latency in microseconds, followed by the gauges.
+     *
+     * @return The summary, ending with a line separator.
+     */
+    @Override
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("%-10s %10s %10s %10s %10s %10s%n", "operation", "count", "mean us", "p50 us",
+                "p99 us", "max us"));
+        for (Timing timing : TIMINGS) {
+            LatencyHistogram histogram = histograms[timing.ordinal()];
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            summary.append(String.format("%-10s %10d %10.1f %10.1f %10.1f %10.1f%n", timing.getLabel(),
+                    histogram.getCount(), histogram.getMean() / 1000, histogram.getPercentile(50) / 1000.0,
+                    histogram.getPercentile(99) / 1000.0, histogram.getMax() / 1000.0));
+        }
+        summary.append("Data structure: ").append(dataStructure).append(", size ").append(size);
+        if (height >= 0) {
+            summary.append(", height ").append(height);
+        }
+        summary.append(", last render ").append(lastRenderChars).append(" chars.").append(System.lineSeparator());
+        return summary.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package visualisation;
+
+/**
+ * The management interface of {@link Metrics}, as seen by JMX clients such as JConsole.
+ */
+public interface MetricsMBean {
+    /**
+     * Gets the name of the data structure the gauges were last sampled from.
+     *
+     * @return The name, for example "linked list".
+     */
+    String getDataStructure();
+
+    /**
+     * Gets the number of values in the data structure when it was last sampled.
+     *
+     * @return The size.
+     */
+    int getSize();
+
+    /**
+     * Gets the height of the tree when it was last sampled.
+     *
+     * @return The height, or -1 if the data structure is not a tree that records its height.
+     */
+    int getHeight();
+
+    /**
+     * Gets the length of the last representation that had to be rendered rather than taken from the cache.
+     *
+     * @return The number of characters.
+     */
+    long getLastRenderChars();
+
+    /**
+     * Gets the names of the timed operations, which the other operations accept.
+     *
+     * @return The names, for example "add".
+     */
+    String[] getOperations();
+
+    /**
+     * Gets how many times an operation was timed.
+     *
+     * @param operation The name of the operation.
+     * @return The count.
+     */
+    long getCount(String operation);
+
+    /**
+     * Gets a percentile of the latency of an operation.
+     *
+     * @param operation The name of the operation.
+     * @param percentile The percentile, from 0 to 100.
+     * @return The latency in microseconds.
+     */
+    double getPercentileMicros(String operation, double percentile);
+
+    /**
+     * Gets all the metrics as text, one operation or gauge per line.
+     *
+     * @return The summary shown by the stats command.
+     */
+    String getSummary();
+
+    /**
+     * Forgets every recorded latency. The gauges are kept.
+     */
+    void reset();
+}
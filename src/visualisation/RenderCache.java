@@ -0,0 +1,113 @@
+package visualisation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import dataStructures.DataStructure;
+import dataStructures.Viewport;
+
+/**
+ * The RenderCache class memoizes the visual representations produced by the VisualisationEngine.
+ *
+ * <p>The cache holds renders of one data structure instance at one modification count, keyed by viewport,
+ * so paging back and forth through an unchanged structure is served from memory. Rendering a different
+ * instance, or the same one after it has changed, drops every entry first: stale renders are never kept, and
+ * a structure that is no longer displayed is not kept reachable by the cache. The least recently used entries
+ * are evicted once the cache is full, and renders too large to be worth keeping are never stored.</p>
+ */
+public class RenderCache {
+    private static final int MAX_ENTRIES = 32;
+    private static final int MAX_CACHED_LENGTH = 1 << 22;
+
+    private final Map<Viewport, String> entries = new LinkedHashMap<Viewport, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Viewport, String> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private DataStructure dataStructure;
+    private long modificationCount;
+    private StringBuilder buffer = new StringBuilder();
+    private long hits;
+    private long misses;
+
+    /**
+     * Gets the visual representation of a data structure through a viewport.
+     *
+     * <p>If the structure has not been modified since it was last rendered through the same viewport,
+     * the cached representation is returned. Otherwise it is rendered again and cached.</p>
+     *
+     * @param dataStructure The data structure to render.
+     * @param viewport The part of the data structure to render.
+     * @return The visual representation.
+     */
+    public String render(DataStructure dataStructure, Viewport viewport) {
+        long currentModificationCount = dataStructure.getModificationCount();
+        if (dataStructure != this.dataStructure || currentModificationCount != modificationCount) {
+            entries.clear();
+            this.dataStructure = dataStructure;
+            modificationCount = currentModificationCount;
+        }
+        String cached = entries.get(viewport);
+        if (cached != null) {
+            hits++;
+            return cached;
+        }
+
+        misses++;
+        buffer.setLength(0);
+        try {
+            dataStructure.writeVisualRepresentation(buffer, viewport);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String rendered = buffer.toString();
+
+        if (rendered.length() <= MAX_CACHED_LENGTH) {
+            entries.put(viewport, rendered);
+        } else {
+            // Do not hold on to a huge scratch buffer between renders
+            buffer = new StringBuilder();
+        }
+        return rendered;
+    }
+
+    /**
+     * Drops every cached representation, the reference to the data structure they were rendered from and the
+     * scratch buffer, for example when another data structure is selected.
+     */
+    public void clear() {
+        entries.clear();
+        dataStructure = null;
+        buffer = new StringBuilder();
+    }
+
+    /**
+     * Gets the number of renders served from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of renders that had to be produced from scratch.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of representations currently held by the cache.
+     *
+     * @return The number of cached entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+}
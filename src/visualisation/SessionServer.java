@@ -0,0 +1,203 @@
+package visualisation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dataStructures.ConsoleEventSink;
+import dataStructures.LinkedList;
+
+/**
+ * Serves interactive sessions of the Data Structure Visualiser over TCP, so that one process can be shared.
+ *
+ * <p>The server listens on the loopback interface only. Every connection gets a session of its own: a
+ * {@link UserInterface} with its own {@link VisualisationEngine}, starting from an empty linked list, that
+ * reads commands from the socket and writes prompts, messages and visualisations back to it. Sessions share
+ * nothing, so what one user does never shows up in another's data structure. A session ends when its user
+ * types 'exit' or disconnects.</p>
+ *
+ * <p>Each session runs on a thread of its own, which spends almost all of its time blocked reading the
+ * socket. On Java 21 and later the threads are virtual, so a blocked session holds no platform thread and an
+ * idle session costs only its buffers and its engine, a few kilobytes, letting thousands stay connected. The
+ * server is built for Java 11, so it finds virtual threads by reflection; on older runtimes it falls back to
+ * daemon platform threads, which work the same but cost a stack each.</p>
+ *
+ * <p>Output is buffered and sent only when the session is about to wait for its user, so a command that
+ * prints many lines costs one write to the socket rather than one per line.</p>
+ */
+public class SessionServer {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ServerSocket serverSocket;
+    private final boolean metrics;
+    private final ThreadFactory threadFactory = sessionThreadFactory();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+    /**
+     * Constructs a SessionServer listening on a port of the loopback interface.
+     *
+     * @param port The port, or 0 for any free port.
+     * @param metrics Whether each session times its operations, for its stats command.
+     * @throws IOException If the port cannot be bound.
+     */
+    public SessionServer(int port, boolean metrics) throws IOException {
+        this.serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        this.metrics = metrics;
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return The port, useful when the server was constructed with port 0.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Checks whether sessions run on virtual threads.
+     *
+     * @return False if the runtime has no virtual threads and sessions run on platform threads.
+     */
+    public boolean usesVirtualThreads() {
+        return !(threadFactory instanceof PlatformThreadFactory);
+    }
+
+    /**
+     * Gets the number of sessions currently connected.
+     *
+     * @return The number of sessions.
+     */
+    public int getSessionCount() {
+        return sessionCount.get();
+    }
+
+    /**
+     * Accepts connections and starts a session for each until the server is closed.
+     *
+     * @throws IOException If accepting a connection fails for a reason other than the server being closed.
+     */
+    public void run() throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            sessionCount.incrementAndGet();
+            threadFactory.newThread(() -> serve(socket)).start();
+        }
+    }
+
+    /**
+     * Stops accepting connections. Sessions that are already connected carry on until they end.
+     *
+     * @throws IOException If closing the server socket fails.
+     */
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    /**
+     * Runs one session until its user exits or disconnects.
+     */
+    private void serve(Socket socket) {
+        try (Socket connection = socket) {
+            connection.setTcpNoDelay(true);
+            PrintStream out = new PrintStream(new BufferedOutputStream(connection.getOutputStream(), BUFFER_SIZE),
+                    false, StandardCharsets.UTF_8);
+            InputStream in = new FlushingInputStream(
+                    new BufferedInputStream(connection.getInputStream(), BUFFER_SIZE), out);
+
+            // The engine flushes after every display, so its output never overtakes the interface's
+            VisualisationEngine visualisationEngine = new VisualisationEngine(new LinkedList(),
+                    new OutputStreamWriter(out, StandardCharsets.UTF_8), true);
+            visualisationEngine.setEventSink(new ConsoleEventSink(out));
+            if (metrics) {
+                visualisationEngine.enableMetrics();
+            }
+
+            new UserInterface(visualisationEngine, in, out).start();
+            out.flush();
+        } catch (NoSuchElementException | IOException e) {
+            // The input ended or the connection failed: the user disconnected, so there is nobody left to tell.
+            // Numbers the user mistyped never get here, because the interface asks for them again
+        } finally {
+            sessionCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Creates the factory for session threads: virtual threads if the runtime has them, platform threads
+     * otherwise.
+     */
+    private static ThreadFactory sessionThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Object factory = Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+            return (ThreadFactory) factory;
+        } catch (ReflectiveOperationException e) {
+            // Before Java 19 there is no such method, and Java 19 and 20 refuse unless preview features are on
+            return new PlatformThreadFactory();
+        }
+    }
+
+    /**
+     * Starts each session on a daemon platform thread, for runtimes without virtual threads.
+     */
+    private static final class PlatformThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable session) {
+            Thread thread = new Thread(session, "session-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * An input stream that flushes the session's output before it waits for more input, so prompts reach the
+     * user before the session blocks on the answer.
+     */
+    private static final class FlushingInputStream extends FilterInputStream {
+        private final PrintStream out;
+
+        FlushingInputStream(InputStream in, PrintStream out) {
+            super(in);
+            this.out = out;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (in.available() == 0) {
+                out.flush();
+            }
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (in.available() == 0) {
+                out.flush();
+            }
+            return in.read(buffer, offset, length);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package visualisation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * The TerminalRepainter class redraws a visual representation in place on an ANSI terminal.
+ *
+ * <p>The first frame clears the screen and is drawn from the top-left corner. The rows below it become
+ * the terminal's scrolling region, so prompts and messages scroll underneath the frame instead of pushing
+ * it off the screen. Every later frame is diffed against the previous one with Myers' algorithm over line
+ * hashes, which finds the longest run of lines the two frames share in order. Only the lines around them are
+ * sent: a changed line is rewritten from its first differing column, and where lines were added or removed
+ * the terminal itself shifts the lines below with its insert-line and delete-line controls, so one node added
+ * in the middle of a tree costs one line rather than every line after it. The cursor is then put back where
+ * the prompt left it. When the frame changes height the scrolling region is moved and cleared. The frame must
+ * fit in the terminal for absolute cursor positioning to work, which the viewport makes easy to guarantee.</p>
+ */
+public class TerminalRepainter {
+    private static final String CSI = "\u001b[";
+    private static final String SAVE_CURSOR = "\u001b7";
+    private static final String RESTORE_CURSOR = "\u001b8";
+
+    /**
+     * The most line edits the diff looks for. Its memory grows with the square of this, and frames that differ
+     * by more are rewritten line by line, which costs about as much as drawing them anyway.
+     */
+    private static final int MAX_EDITS = 256;
+
+    private String[] lastFrame;
+    private long charactersWritten;
+
+    /**
+     * Forgets the previous frame, so that the next frame is drawn in full on a cleared screen.
+     */
+    public void reset() {
+        lastFrame = null;
+    }
+
+    /**
+     * Draws a frame, sending only the differences from the previous frame where there is one.
+     *
+     * @param frame The visual representation to draw.
+     * @param out The terminal output.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    public void repaint(String frame, Writer out) throws IOException {
+        String[] lines = splitLines(frame);
+
+        if (lastFrame == null) {
+            write(out, CSI + "2J" + CSI + "H");
+            for (String line : lines) {
+                write(out, line);
+                write(out, "\n");
+            }
+            startInteractionArea(out, lines.length);
+        } else {
+            write(out, SAVE_CURSOR);
+            boolean shifted = update(lines, out);
+            if (lines.length != lastFrame.length) {
+                startInteractionArea(out, lines.length);
+            } else {
+                if (shifted) {
+                    write(out, CSI + (lines.length + 2) + "r");
+                }
+                write(out, RESTORE_CURSOR);
+            }
+        }
+        lastFrame = lines;
+    }
+
+    /**
+     * Turns the previous frame on the screen into the new one.
+     *
+     * <p>The lines between two consecutive shared lines form a hunk: some previous lines to remove and some new
+     * lines to add. As many of them as there are on both sides are rewritten in place. The first pass, from the
+     * top, does those rewrites and deletes the surplus previous lines, so the frame on the screen only shrinks;
+     * the second inserts the surplus new lines. Nothing that is still needed is ever pushed off the bottom of
+     * the scrolling region, which covers the taller of the two frames while lines are shifted.</p>
+     *
+     * @return True if lines were shifted, which leaves the scrolling region around the frame.
+     */
+    private boolean update(String[] lines, Writer out) throws IOException {
+        int[] matches = matchLines(lastFrame, lines);
+        int regionBottom = Math.max(2, Math.max(lines.length, lastFrame.length));
+        boolean shifted = false;
+
+        // New lines that are not on the screen yet, above the hunk being updated
+        int missing = 0;
+        for (int previous = 0, line = 0; ; ) {
+            int next = line;
+            while (next < lines.length && matches[next] < 0) {
+                next++;
+            }
+            int previousEnd = next < lines.length ? matches[next] : lastFrame.length;
+            int removed = previousEnd - previous;
+            int added = next - line;
+            int rewritten = Math.min(removed, added);
+
+            for (int i = 0; i < rewritten; i++) {
+                rewrite(out, line - missing + i, lastFrame[previous + i], lines[line + i]);
+            }
+            if (removed > added) {
+                if (!shifted) {
+                    write(out, CSI + "1;" + regionBottom + "r");
+                    shifted = true;
+                }
+                moveCursor(out, line - missing + rewritten + 1, 1);
+                write(out, CSI + (removed - added) + "M");
+            }
+            missing += Math.max(0, added - removed);
+
+            if (next == lines.length) {
+                break;
+            }
+            previous = previousEnd + 1;
+            line = next + 1;
+        }
+
+        for (int previous = 0, line = 0; missing > 0; ) {
+            int next = line;
+            while (next < lines.length && matches[next] < 0) {
+                next++;
+            }
+            int previousEnd = next < lines.length ? matches[next] : lastFrame.length;
+            int removed = previousEnd - previous;
+            int added = next - line;
+
+            if (added > removed) {
+                if (!shifted) {
+                    write(out, CSI + "1;" + regionBottom + "r");
+                    shifted = true;
+                }
+                int row = line + removed;
+                moveCursor(out, row + 1, 1);
+                write(out, CSI + (added - removed) + "L");
+                for (int i = row; i < next; i++) {
+                    if (i > row) {
+                        moveCursor(out, i + 1, 1);
+                    }
+                    write(out, lines[i]);
+                }
+                missing -= added - removed;
+            }
+
+            previous = previousEnd + 1;
+            line = next + 1;
+        }
+        return shifted;
+    }
+
+    /**
+     * Rewrites one row of the frame, starting at the first column where the new line differs.
+     */
+    private void rewrite(Writer out, int row, String previous, String current) throws IOException {
+        if (previous.equals(current)) {
+            return;
+        }
+        int column = commonPrefixLength(previous, current);
+        moveCursor(out, row + 1, column + 1);
+        write(out, current.substring(column));
+        // Clear whatever remains of the previous, possibly longer, line
+        write(out, CSI + "K");
+    }
+
+    /**
+     * Finds the longest sequence of lines the two frames share in the same order, using Myers' O((n + m) D)
+     * diff after stripping the lines they start and end with in common.
+     *
+     * <p>The search gives up after {@value #MAX_EDITS} edits, which bounds its time by O((n + m) MAX_EDITS) and
+     * its memory by O(MAX_EDITS^2) however long the frames are. Only the common start and end are then matched,
+     * and the lines between are rewritten in place, as when a frame is replaced by a completely different
+     * one.</p>
+     *
+     * @return For each line of the new frame, the index of the previous line it is kept as, or -1 if it is new.
+     */
+    private static int[] matchLines(String[] previous, String[] current) {
+        int[] previousHashes = hashes(previous);
+        int[] currentHashes = hashes(current);
+        int[] matches = new int[current.length];
+        Arrays.fill(matches, -1);
+
+        int prefix = 0;
+        while (prefix < previous.length && prefix < current.length
+                && sameLine(previous, previousHashes, prefix, current, currentHashes, prefix)) {
+            matches[prefix] = prefix;
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < previous.length - prefix && suffix < current.length - prefix
+                && sameLine(previous, previousHashes, previous.length - 1 - suffix,
+                current, currentHashes, current.length - 1 - suffix)) {
+            matches[current.length - 1 - suffix] = previous.length - 1 - suffix;
+            suffix++;
+        }
+
+        int n = previous.length - prefix - suffix;
+        int m = current.length - prefix - suffix;
+        if (n == 0 || m == 0) {
+            return matches;
+        }
+
+        // v[k + max] is the furthest previous line reached on diagonal k; a copy is kept per edit for the way back
+        int max = Math.min(n + m, MAX_EDITS);
+        int[] v = new int[2 * max + 2];
+        int[][] trace = new int[max + 1][];
+        int edits = 0;
+        search:
+        for (; ; edits++) {
+            if (edits > max) {
+                return matches;
+            }
+            trace[edits] = Arrays.copyOfRange(v, max - edits, max + edits + 2);
+            for (int k = -edits; k <= edits; k += 2) {
+                int x = k == -edits || (k != edits && v[max + k - 1] < v[max + k + 1])
+                        ? v[max + k + 1] : v[max + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m
+                        && sameLine(previous, previousHashes, prefix + x, current, currentHashes, prefix + y)) {
+                    x++;
+                    y++;
+                }
+                v[max + k] = x;
+                if (x >= n && y >= m) {
+                    break search;
+                }
+            }
+        }
+
+        int x = n;
+        int y = m;
+        for (int d = edits; d > 0; d--) {
+            int[] before = trace[d];
+            int k = x - y;
+            int previousK = k == -d || (k != d && before[k - 1 + d] < before[k + 1 + d]) ? k + 1 : k - 1;
+            int previousX = before[previousK + d];
+            int previousY = previousX - previousK;
+            while (x > previousX && y > previousY) {
+                x--;
+                y--;
+                matches[prefix + y] = prefix + x;
+            }
+            x = previousX;
+            y = previousY;
+        }
+        while (x > 0 && y > 0) {
+            x--;
+            y--;
+            matches[prefix + y] = prefix + x;
+        }
+        return matches;
+    }
+
+    private static int[] hashes(String[] lines) {
+        int[] hashes = new int[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            hashes[i] = lines[i].hashCode();
+        }
+        return hashes;
+    }
+
+    private static boolean sameLine(String[] previous, int[] previousHashes, int i, String[] current,
+                                    int[] currentHashes, int j) {
+        return previousHashes[i] == currentHashes[j] && previous[i].equals(current[j]);
+    }
+
+    /**
+     * Returns the terminal to normal scrolling and leaves the cursor below the last frame, so that
+     * output can continue underneath it.
+     *
+     * @param out The terminal output.
+     * @throws IOException If writing to {@code out} fails.
+     */
+    public void release(Writer out) throws IOException {
+        if (lastFrame != null) {
+            write(out, CSI + "r");
+            moveCursor(out, lastFrame.length + 2, 1);
+            write(out, CSI + "J");
+            lastFrame = null;
+        }
+    }
+
+    /**
+     * Makes the rows below a frame of the given height the scrolling region, clears them and moves the
+     * cursor to the first of them. A blank row is left between the frame and the region.
+     */
+    private void startInteractionArea(Writer out, int frameHeight) throws IOException {
+        write(out, CSI + (frameHeight + 2) + "r");
+        moveCursor(out, frameHeight + 1, 1);
+        write(out, CSI + "J");
+        moveCursor(out, frameHeight + 2, 1);
+    }
+
+    /**
+     * Gets the number of characters sent to the terminal by this repainter.
+     *
+     * @return The total number of characters written.
+     */
+    public long getCharactersWritten() {
+        return charactersWritten;
+    }
+
+    private void moveCursor(Writer out, int row, int column) throws IOException {
+        write(out, CSI + row + ";" + column + "H");
+    }
+
+    private void write(Writer out, String text) throws IOException {
+        out.write(text);
+        charactersWritten += text.length();
+    }
+
+    private static int commonPrefixLength(String previous, String current) {
+        int limit = Math.min(previous.length(), current.length());
+        int i = 0;
+        while (i < limit && previous.charAt(i) == current.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String[] splitLines(String frame) {
+        if (frame.isEmpty()) {
+            return new String[0];
+        }
+        String trimmed = frame.endsWith("\n") ? frame.substring(0, frame.length() - 1) : frame;
+        return trimmed.split("\n", -1);
+    }
+}
@@ -1,11 +1,26 @@
 package visualisation;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
+import dataStructures.AVLTree;
+import dataStructures.ArenaTree;
+import dataStructures.Array;
 import dataStructures.BinaryTree;
+import dataStructures.ConcurrentStack;
+import dataStructures.ConcurrentTree;
 import dataStructures.DataStructure;
+import dataStructures.DirectedGraph;
+import dataStructures.IntegerFile;
+import dataStructures.Journal;
 import dataStructures.LinkedList;
+import dataStructures.Queue;
+import dataStructures.Snapshot;
 import dataStructures.Stack;
+import dataStructures.Versioned;
 
 /**
  * User Interface for the Data Structure Visualiser.
@@ -17,16 +32,33 @@ import dataStructures.Stack;
 public class UserInterface {
     private final VisualisationEngine visualisationEngine;
     private final Scanner scanner;
-    private static boolean running;
+    private final PrintStream out;
+    private boolean running;
 
     /**
-     * Constructs a User Interface with the specified VisualisationEngine.
+     * Constructs a User Interface with the specified VisualisationEngine that talks to the console.
      *
      * @param visualisationEngine The Visualisation Engine to use for visualisation.
      */
     public UserInterface(VisualisationEngine visualisationEngine) {
+        this(visualisationEngine, System.in, System.out);
+    }
+
+    /**
+     * Constructs a User Interface with the specified VisualisationEngine that talks to the given streams, for
+     * example those of a network session.
+     *
+     * <p>The Visualisation Engine should write to the same destination as {@code out}, and each of them must
+     * be flushed before the user is expected to answer.</p>
+     *
+     * @param visualisationEngine The Visualisation Engine to use for visualisation.
+     * @param in The input commands and answers are read from.
+     * @param out The output prompts and messages are printed to.
+     */
+    public UserInterface(VisualisationEngine visualisationEngine, InputStream in, PrintStream out) {
         this.visualisationEngine = visualisationEngine;
-        this.scanner = new Scanner(System.in);
+        this.scanner = new Scanner(in);
+        this.out = out;
         running = true;
     }
 
@@ -34,13 +66,13 @@ public class UserInterface {
      * Starts the Data Structure Visualiser UI
      */
     public void start() {
-        System.out.println("Welcome to the Data Structure Visualiser!");
-        System.out.println(("Here you can view data structures and perform operations on them."));
-        System.out.println("Type 'help' for a list of available commands.");
-        System.out.println("------------------------------------------------------------------");
+        out.println("Welcome to the Data Structure Visualiser!");
+        out.println(("Here you can view data structures and perform operations on them."));
+        out.println("Type 'help' for a list of available commands.");
+        out.println("------------------------------------------------------------------");
 
         while (running) {
-            System.out.print("> ");
+            out.print("> ");
             String userInput = scanner.nextLine();
             processUserInput(userInput);
         }
@@ -77,29 +109,34 @@ public class UserInterface {
      * and 'exit' to exit the program.</p>
      */
     private void displayHelp() {
-        System.out.println("\nAvailable Commands:");
-        System.out.println(" - help: Display this help message.");
-        System.out.println(" - choose: Choose a data structure.");
-        System.out.println(" - exit: Exit the program.");
-        System.out.println("------------------------------------------------------------------");
+        out.println("\nAvailable Commands:");
+        out.println(" - help: Display this help message.");
+        out.println(" - choose: Choose a data structure.");
+        out.println(" - load: Load a data structure from a snapshot file.");
+        out.println(" - exit: Exit the program.");
+        out.println("------------------------------------------------------------------");
     }
 
     /**
      * Handles user input related to data structure commands.
      *
-     * <p>This method takes user input and checks if it corresponds to the 'choose' command.
+     * <p>This method takes user input and checks if it corresponds to the 'choose' or 'load' command.
      * If the input is 'choose,' it calls the chooseDataStructure() method to initiate the data structure
-     * selection process. If the input is unknown, it prints a message suggesting the user type 'help'
-     * for assistance.</p>
+     * selection process, and 'load' continues with a data structure loaded from a snapshot. If the input is
+     * unknown, it prints a message suggesting the user type 'help' for assistance.</p>
      *
      * @param userInput The user's input related to data structure commands.
      */
     private void handleDataStructureCommand(String userInput) {
         if (userInput.equalsIgnoreCase("choose")) {
             chooseDataStructure();
+        } else if (userInput.equalsIgnoreCase("load")) {
+            if (loadSnapshot()) {
+                performDataStructureOperations();
+            }
         } else {
-            System.out.println("Unknown command: Type 'help' for assistance.");
-            System.out.println("------------------------------------------------------------------");
+            out.println("Unknown command: Type 'help' for assistance.");
+            out.println("------------------------------------------------------------------");
         }
     }
 
@@ -113,22 +150,32 @@ public class UserInterface {
      * data structure.</p>
      */
     private void chooseDataStructure() {
-        System.out.println("------------------------------------------------------------------");
-        System.out.println("Choose a data structure:");
-        System.out.println("1. Linked List");
-        System.out.println("2. Stack");
-        System.out.println("3. Queue");
-        System.out.println("4. Binary Tree");
-        System.out.println("5. Tree");
-        System.out.println("------------------------------------------------------------------");
-
-        System.out.print("Enter the number of your choice: ");
+        out.println("------------------------------------------------------------------");
+        out.println("Choose a data structure:");
+        out.println("1. Linked List");
+        out.println("2. Stack");
+        out.println("3. Queue");
+        out.println("4. Binary Tree");
+        out.println("5. Tree");
+        out.println("6. AVL Tree (self-balancing)");
+        out.println("7. Array");
+        out.println("8. Sorted Array");
+        out.println("9. Directed Graph");
+        out.println("10. Concurrent Stack (lock-free)");
+        out.println("11. Concurrent Tree (thread-safe ordered set)");
+        out.println("12. Arena Tree (binary tree stored off-heap)");
+        out.println("13. Indexed Linked List (removal by value in constant time)");
+        out.println("------------------------------------------------------------------");
+
+        out.print("Enter the number of your choice: ");
         String choice = scanner.nextLine();
 
         DataStructure selectedDataStructure = createDataStructure(choice);
         if (selectedDataStructure != null) {
             visualisationEngine.setDataStructure(selectedDataStructure);
             performDataStructureOperations();
+        } else {
+            out.println("Invalid choice. Please try again.");
         }
     }
 
@@ -136,24 +183,42 @@ public class UserInterface {
      * Creates a new instance of the selected data structure based on the user's choice.
      *
      * <p>This method takes a string representation of the user's choice and returns a new instance of the
-     * corresponding data structure. The choices include options for a Linked List, Stack, and null for other
-     * data structures. If the choice is invalid, it prints an error message and returns null.</p>
+     * corresponding data structure. The choices include options for a Linked List, Stack, Queue, Binary Tree, a
+     * self-balancing AVL Tree, an Array, either in insertion order or sorted, a
+     * Directed Graph, the thread-safe Concurrent Stack and Concurrent Tree, a Binary Tree stored off-heap and
+     * a Linked List with a hash index.
+     * It is shared by the interactive and batch interfaces.</p>
      *
      * @param choice The user's choice representing the desired data structure.
      * @return A new instance of the selected data structure or null if the choice is invalid.
      */
-    private DataStructure createDataStructure(String choice) {
+    static DataStructure createDataStructure(String choice) {
         switch (choice.toLowerCase()) {
             case "1":
                 return new LinkedList();
             case "2":
                 return new Stack();
             case "3":
-                return null;
+                return new Queue();
             case "4":
                 return new BinaryTree();
+            case "6":
+                return new AVLTree();
+            case "7":
+                return new Array();
+            case "8":
+                return new Array(true);
+            case "9":
+                return new DirectedGraph();
+            case "10":
+                return new ConcurrentStack();
+            case "11":
+                return new ConcurrentTree();
+            case "12":
+                return new ArenaTree();
+            case "13":
+                return new LinkedList(true);
             default:
-                System.out.println("Invalid choice. Please try again.");
                 return null;
         }
     }
@@ -167,47 +232,169 @@ public class UserInterface {
      * structure, and exiting the program.</p>
      */
     private void performDataStructureOperations() {
-        System.out.println("------------------------------------------------------------------");
-        System.out.println("Data Structure chosen. You can now perform operations:");
+        out.println("------------------------------------------------------------------");
+        out.println("Data Structure chosen. You can now perform operations:");
 
-        if (!(visualisationEngine.getDataStructure() instanceof Stack)) {
-            System.out.println(" - add: Add a node.");
-            System.out.println(" - remove: Remove a node.");
+        if (visualisationEngine.getDataStructure() instanceof DirectedGraph) {
+            out.println(" - add: Add a vertex.");
+            out.println(" - remove: Remove a vertex and its edges.");
+            out.println(" - add-edge: Add an edge from one vertex to another.");
+            out.println(" - remove-edge: Remove an edge from one vertex to another.");
+            out.println(" - bfs / dfs: List the vertices reachable from a vertex, breadth- or depth-first.");
+            out.println(" - degree: Show how many edges enter and leave a vertex.");
+            out.println(" - bfs-levels: Search breadth-first from a vertex in parallel and show each level.");
+            out.println(" - threads: Set how many threads the search runs on.");
+        } else if (visualisationEngine.getDataStructure() instanceof Queue) {
+            out.println(" - enqueue: Add an element to the back of the queue.");
+            out.println(" - dequeue: Remove the element at the front of the queue.");
+        } else if (!(visualisationEngine.getDataStructure() instanceof Stack)
+                && !(visualisationEngine.getDataStructure() instanceof ConcurrentStack)) {
+            out.println(" - add: Add a node.");
+            out.println(" - remove: Remove a node.");
         } else {
-            System.out.println(" - push: Push an element onto the stack");
-            System.out.println(" - pop: Pop an element from the stack");
+            out.println(" - push: Push an element onto the stack");
+            out.println(" - pop: Pop an element from the stack");
         }
 
-        System.out.println(" - display: Display the current data structure.");
-        System.out.println(" - back: Go back to choosing a data structure.");
-        System.out.println(" - exit: Exit the program");
-        System.out.println("------------------------------------------------------------------");
+        out.println(" - display: Display the current data structure.");
+        out.println(" - viewport: Toggle between the whole data structure and one page of it.");
+        out.println(" - next / prev: Move the viewport to the next or previous page.");
+        out.println(" - zoom: Set how many elements (or tree rows) a page shows.");
+        out.println(" - levels: Set how many tree levels a page shows.");
+        out.println(" - cache: Show render cache statistics.");
+        out.println(" - stats: Show operation latencies and the size of the data structure.");
+        out.println(" - bench: Measure the throughput of a mix of operations on the data structure.");
+        out.println(" - save: Save the data structure to a snapshot file.");
+        out.println(" - load: Replace the data structure with one loaded from a snapshot file.");
+        out.println(" - import: Add every integer in a text file at once.");
+        if (visualisationEngine.getJournal() != null) {
+            out.println(" - compact: Fold the journal into a new snapshot.");
+        }
+        if (visualisationEngine.getDataStructure() instanceof ArenaTree) {
+            out.println(" - footprint: Show how much memory the arena uses.");
+        } else if (isIndexedList(visualisationEngine.getDataStructure())) {
+            out.println(" - footprint: Show how much memory the index uses.");
+        }
+        if (visualisationEngine.getDataStructure() instanceof BinaryTree) {
+            out.println(" - kth: Find the k-th smallest value.");
+            out.println(" - rank: Show the position of a value in ascending order.");
+            out.println(" - range: Count and add up the values between two bounds.");
+        }
+        if (visualisationEngine.getDataStructure() instanceof Versioned) {
+            out.println(" - undo / redo: Step back or forward through the versions of the data structure.");
+            out.println(" - goto: Go to a version of the data structure by its number.");
+        }
+        out.println(" - repaint: Toggle redrawing the display in place (ANSI terminals only).");
+        out.println(" - back: Go back to choosing a data structure.");
+        out.println(" - exit: Exit the program");
+        out.println("------------------------------------------------------------------");
 
         while (running) {
-            System.out.print("> ");
+            out.print("> ");
             String operation = scanner.nextLine().toLowerCase();
             switch (operation) {
                 case "add":
                 case "push":
+                case "enqueue":
                     addNode();
                     break;
                 case "remove":
                 case "pop":
+                case "dequeue":
                     removeNode();
                     break;
+                case "add-edge":
+                case "remove-edge":
+                    changeEdge(operation.equals("add-edge"));
+                    break;
+                case "bfs":
+                case "dfs":
+                    searchGraph(operation.equals("dfs"));
+                    break;
+                case "degree":
+                    displayDegree();
+                    break;
+                case "bfs-levels":
+                    displayLevels();
+                    break;
+                case "threads":
+                    setThreads();
+                    break;
                 case "traverse":
                     visualisationEngine.traverseAndVisualize();
                     break;
                 case "display":
                     visualisationEngine.displayVisualisation();
                     break;
+                case "viewport":
+                    toggleViewport();
+                    break;
+                case "next":
+                    visualisationEngine.nextPage();
+                    visualisationEngine.displayVisualisation();
+                    break;
+                case "prev":
+                    visualisationEngine.previousPage();
+                    visualisationEngine.displayVisualisation();
+                    break;
+                case "zoom":
+                    zoom();
+                    break;
+                case "levels":
+                    setLevels();
+                    break;
+                case "cache":
+                    displayCacheStatistics();
+                    break;
+                case "stats":
+                    out.print(describeMetrics(visualisationEngine.getMetrics()));
+                    break;
+                case "bench":
+                    runBenchmark();
+                    break;
+                case "repaint":
+                    toggleRepaint();
+                    break;
+                case "save":
+                    saveSnapshot();
+                    break;
+                case "load":
+                    loadSnapshot();
+                    break;
+                case "import":
+                    importValues();
+                    break;
+                case "compact":
+                    compactJournal();
+                    break;
+                case "undo":
+                case "redo":
+                    stepThroughHistory(operation.equals("undo"));
+                    break;
+                case "goto":
+                    goToVersion();
+                    break;
+                case "kth":
+                case "rank":
+                case "range":
+                    queryTree(operation);
+                    break;
+                case "footprint":
+                    if (visualisationEngine.getDataStructure() instanceof ArenaTree) {
+                        out.println(describeFootprint((ArenaTree) visualisationEngine.getDataStructure()));
+                    } else if (isIndexedList(visualisationEngine.getDataStructure())) {
+                        out.println(describeFootprint((LinkedList) visualisationEngine.getDataStructure()));
+                    } else {
+                        out.println("This operation is only available for an arena tree or an indexed list.");
+                    }
+                    break;
                 case "back":
                     return;
                 case "exit":
                     exitProgram();
                     break;
                 default:
-                    System.out.println("Unknown operation. Type 'help' for assistance.");
+                    out.println("Unknown operation. Type 'help' for assistance.");
             }
         }
     }
@@ -219,35 +406,652 @@ public class UserInterface {
      * a node with the entered value to the selected data structure. It then displays the updated visualisation.</p>
      */
     private void addNode() {
-        System.out.print("Enter the value of the node to add: ");
-        int value = scanner.nextInt();
+        out.print("Enter the value of the node to add: ");
+        int value = readInt();
         scanner.nextLine();
 
-        visualisationEngine.getDataStructure().addNode(value);
+        visualisationEngine.addNode(value);
         visualisationEngine.displayVisualisation();
     }
 
     /**
      * Removes a node from the selected data structure based on user input.
      *
-     * <p>This method checks the type of the selected data structure. If it's not a Stack, it prompts the user
-     * to enter the value of the node to be removed. If it's a Stack, it removes the top element. It then displays
-     * the updated visualisation of the data structure.</p>
+     * <p>This method checks the type of the selected data structure. If it's not a stack or a Queue, it prompts
+     * the user to enter the value of the node to be removed. If it's a stack, it removes the top element, and if
+     * it's a Queue, the front element. It then displays the updated visualisation of the data structure.</p>
      */
     private void removeNode() {
-        if (!(visualisationEngine.getDataStructure() instanceof Stack)) {
-            System.out.print("Enter the value of the node to remove: ");
-            int value = scanner.nextInt();
+        if (!removesWithoutValue(visualisationEngine.getDataStructure())) {
+            out.print("Enter the value of the node to remove: ");
+            int value = readInt();
             scanner.nextLine();
 
-            visualisationEngine.getDataStructure().removeNode(value);
+            visualisationEngine.removeNode(value);
+        } else {
+            visualisationEngine.removeNode(0);
+        }
+
+        visualisationEngine.displayVisualisation();
+    }
+
+    /**
+     * Adds or removes an edge of the selected directed graph based on user input.
+     *
+     * <p>This method prompts the user for the vertex the edge leaves and the vertex it enters, changes the
+     * edge and displays the updated visualisation.</p>
+     *
+     * @param adding True to add the edge, false to remove it.
+     */
+    private void changeEdge(boolean adding) {
+        DirectedGraph graph = selectedGraph();
+        if (graph == null) {
+            return;
+        }
+
+        out.print("Enter the value of the vertex the edge leaves: ");
+        int from = readInt();
+        out.print("Enter the value of the vertex the edge enters: ");
+        int to = readInt();
+        scanner.nextLine();
+
+        if (adding) {
+            graph.addEdge(from, to);
+        } else {
+            graph.removeEdge(from, to);
+        }
+        visualisationEngine.recordChange();
+        visualisationEngine.displayVisualisation();
+    }
+
+    /**
+     * Lists the vertices of the selected directed graph that are reachable from a vertex.
+     *
+     * @param depthFirst True for a depth-first search, false for a breadth-first one.
+     */
+    private void searchGraph(boolean depthFirst) {
+        DirectedGraph graph = selectedGraph();
+        if (graph == null) {
+            return;
+        }
+
+        out.print("Enter the value of the vertex to start from: ");
+        int start = readInt();
+        scanner.nextLine();
+
+        out.println(describeSearch(graph, start, depthFirst));
+    }
+
+    /**
+     * Shows the in- and out-degree of a vertex of the selected directed graph.
+     */
+    private void displayDegree() {
+        DirectedGraph graph = selectedGraph();
+        if (graph == null) {
+            return;
+        }
+
+        out.print("Enter the value of the vertex: ");
+        int value = readInt();
+        scanner.nextLine();
+
+        out.println(describeDegree(graph, value));
+    }
+
+    /**
+     * Runs an order-statistic or range query on the selected binary tree.
+     *
+     * <p>This method prompts for the arguments of the query, prints its result and displays the tree with
+     * the values the result refers to highlighted.</p>
+     *
+     * @param query "kth", "rank" or "range".
+     */
+    private void queryTree(String query) {
+        if (!(visualisationEngine.getDataStructure() instanceof BinaryTree)) {
+            out.println("This operation is only available for a binary tree.");
+            return;
+        }
+        BinaryTree tree = (BinaryTree) visualisationEngine.getDataStructure();
+
+        int[] highlight;
+        if (query.equals("kth")) {
+            out.print("Enter the position, starting from 1 for the smallest value: ");
+            int position = readInt();
+            scanner.nextLine();
+            out.println(describeSelect(tree, position));
+            highlight = selectHighlight(tree, position);
+        } else if (query.equals("rank")) {
+            out.print("Enter the value to rank: ");
+            int value = readInt();
+            scanner.nextLine();
+            out.println(describeRank(tree, value));
+            highlight = rankHighlight(value);
+        } else {
+            out.print("Enter the smallest value of the range: ");
+            int low = readInt();
+            out.print("Enter the largest value of the range: ");
+            int high = readInt();
+            scanner.nextLine();
+            out.println(describeRange(tree, low, high));
+            highlight = new int[] {low, high};
+        }
+        visualisationEngine.displayHighlighted(highlight[0], highlight[1]);
+    }
+
+    /**
+     * Searches the selected directed graph breadth-first from a vertex and shows the vertices level by level.
+     */
+    private void displayLevels() {
+        DirectedGraph graph = selectedGraph();
+        if (graph == null) {
+            return;
+        }
+
+        out.print("Enter the value of the vertex to start from: ");
+        int start = readInt();
+        scanner.nextLine();
+
+        visualisationEngine.displayLevels(start);
+    }
+
+    /**
+     * Changes the number of threads searches of a directed graph run on.
+     */
+    private void setThreads() {
+        out.print("Enter the number of threads (currently " + visualisationEngine.getParallelism() + "): ");
+        int threads = readInt();
+        scanner.nextLine();
+
+        if (threads < 1) {
+            out.println("The number of threads must be at least 1.");
+            return;
+        }
+        visualisationEngine.setParallelism(threads);
+    }
+
+    /**
+     * Gets the selected data structure if it is a directed graph.
+     *
+     * @return The directed graph, or null after telling the user that the operation needs one.
+     */
+    private DirectedGraph selectedGraph() {
+        if (!(visualisationEngine.getDataStructure() instanceof DirectedGraph)) {
+            out.println("This operation is only available for a directed graph.");
+            return null;
+        }
+        return (DirectedGraph) visualisationEngine.getDataStructure();
+    }
+
+    /**
+     * Describes the result of a breadth- or depth-first search. It is shared by the interactive and batch interfaces.
+     *
+     * @param graph The graph to search.
+     * @param start The value of the vertex to start from.
+     * @param depthFirst True for a depth-first search, false for a breadth-first one.
+     * @return A line listing the reachable vertices in the order they were visited.
+     */
+    static String describeSearch(DirectedGraph graph, int start, boolean depthFirst) {
+        if (!graph.containsVertex(start)) {
+            return "Vertex with value " + start + " not found in the directed graph.";
+        }
+
+        int[] order = depthFirst ? graph.depthFirst(start) : graph.breadthFirst(start);
+        StringBuilder description = new StringBuilder(depthFirst ? "Depth-first from " : "Breadth-first from ");
+        description.append(start).append(':');
+        for (int value : order) {
+            description.append(' ').append(value);
+        }
+        return description.toString();
+    }
+
+    /**
+     * Describes the in- and out-degree of a vertex. It is shared by the interactive and batch interfaces.
+     *
+     * @param graph The graph containing the vertex.
+     * @param value The value of the vertex.
+     * @return A line with both degrees.
+     */
+    static String describeDegree(DirectedGraph graph, int value) {
+        if (!graph.containsVertex(value)) {
+            return "Vertex with value " + value + " not found in the directed graph.";
+        }
+        return "Vertex " + value + ": in-degree " + graph.inDegree(value) + ", out-degree " + graph.outDegree(value) + ".";
+    }
+
+    /**
+     * Describes the k-th smallest value of a binary tree. It is shared by the interactive and batch interfaces.
+     *
+     * @param tree The binary tree.
+     * @param position The position in ascending order, starting from 1.
+     * @return A line with the value at that position.
+     */
+    static String describeSelect(BinaryTree tree, int position) {
+        if (position < 1 || position > tree.size()) {
+            return "Position " + position + " is not between 1 and " + tree.size() + ".";
+        }
+        return "Value number " + position + " in ascending order is " + tree.select(position) + ".";
+    }
+
+    /**
+     * Gets the range of values to highlight for the k-th smallest value: just that value, if there is one.
+     *
+     * @param tree The binary tree.
+     * @param position The position in ascending order, starting from 1.
+     * @return The smallest and largest highlighted values.
+     */
+    static int[] selectHighlight(BinaryTree tree, int position) {
+        if (position < 1 || position > tree.size()) {
+            return new int[] {1, 0};
+        }
+        int value = tree.select(position);
+        return new int[] {value, value};
+    }
+
+    /**
+     * Describes the rank of a value in a binary tree. It is shared by the interactive and batch interfaces.
+     *
+     * @param tree The binary tree.
+     * @param value The value to rank.
+     * @return A line with the position the value has, or would have, in ascending order.
+     */
+    static String describeRank(BinaryTree tree, int value) {
+        int rank = tree.rank(value);
+        return "Value " + value + (tree.countRange(value, value) == 1 ? " has" : " is not in the tree but would have")
+                + " rank " + rank + " of " + tree.size() + " (" + (rank - 1) + " smaller values).";
+    }
+
+    /**
+     * Gets the range of values to highlight for the rank of a value: the values smaller than it.
+     *
+     * @param value The value to rank.
+     * @return The smallest and largest highlighted values.
+     */
+    static int[] rankHighlight(int value) {
+        return value == Integer.MIN_VALUE ? new int[] {1, 0} : new int[] {Integer.MIN_VALUE, value - 1};
+    }
+
+    /**
+     * Describes the values of a binary tree in a range. It is shared by the interactive and batch interfaces.
+     *
+     * @param tree The binary tree.
+     * @param low The smallest value of the range.
+     * @param high The largest value of the range.
+     * @return A line with the number and the sum of the values in the range.
+     */
+    static String describeRange(BinaryTree tree, int low, int high) {
+        return tree.countRange(low, high) + " values in [" + low + ", " + high + "], adding up to "
+                + tree.sumRange(low, high) + ".";
+    }
+
+    /**
+     * Describes the memory used by an arena tree. It is shared by the interactive and batch interfaces.
+     *
+     * @param tree The arena tree.
+     * @return A line with the number of nodes, the off-heap bytes reserved and the bytes per node.
+     */
+    static String describeFootprint(ArenaTree tree) {
+        long bytes = tree.getOffHeapBytes();
+        return "Arena: " + tree.size() + " nodes (" + ArenaTree.NODE_BYTES + " bytes each), " + tree.getFreeSlots()
+                + " free slots, " + tree.getPageCount() + " pages, " + bytes / 1024 + " KiB off-heap"
+                + (tree.size() == 0 ? "." : " (" + String.format("%.1f", (double) bytes / tree.size())
+                + " bytes per value).");
+    }
+
+    /**
+     * Describes the memory used by the index of a linked list. It is shared by the interactive and batch
+     * interfaces.
+     *
+     * @param list The indexed linked list.
+     * @return A line with the number of elements and distinct values and the bytes the index adds.
+     */
+    static String describeFootprint(LinkedList list) {
+        long bytes = list.getIndexBytes();
+        return "Index: " + list.size() + " elements, " + list.getDistinctValues() + " distinct values, "
+                + bytes / 1024 + " KiB on top of the list"
+                + (list.size() == 0 ? "." : " (" + String.format("%.1f", (double) bytes / list.size())
+                + " bytes per element).");
+    }
+
+    /**
+     * Checks whether a data structure is a linked list with a hash index. It is shared by the interactive and
+     * batch interfaces.
+     *
+     * @param dataStructure The data structure.
+     * @return True for an indexed linked list.
+     */
+    static boolean isIndexedList(DataStructure dataStructure) {
+        return dataStructure instanceof LinkedList && ((LinkedList) dataStructure).isIndexed();
+    }
+
+    /**
+     * Checks whether a data structure always removes the element at one of its ends, so that removing
+     * needs no value. It is shared by the interactive and batch interfaces.
+     *
+     * @param dataStructure The data structure.
+     * @return True for stacks and queues.
+     */
+    static boolean removesWithoutValue(DataStructure dataStructure) {
+        return dataStructure instanceof Stack || dataStructure instanceof ConcurrentStack
+                || dataStructure instanceof Queue;
+    }
+
+    /**
+     * Switches the viewport between the whole data structure and a single page.
+     *
+     * <p>This method toggles paging in the VisualisationEngine, reports the resulting viewport and
+     * displays the data structure through it.</p>
+     */
+    private void toggleViewport() {
+        if (visualisationEngine.toggleViewport()) {
+            out.println("Viewport enabled: " + visualisationEngine.getViewport());
         } else {
-            visualisationEngine.getDataStructure().removeNode(0);
+            out.println("Viewport disabled: showing the whole data structure.");
         }
+        visualisationEngine.displayVisualisation();
+    }
 
+    /**
+     * Changes the number of elements, or tree rows, shown on each page of the viewport.
+     *
+     * <p>This method prompts the user for the page size, enables paging with it and displays the
+     * updated visualisation.</p>
+     */
+    private void zoom() {
+        out.print("Enter the number of elements per page: ");
+        int pageSize = readInt();
+        scanner.nextLine();
+
+        if (pageSize < 1) {
+            out.println("The page size must be at least 1.");
+            return;
+        }
+        visualisationEngine.setPageSize(pageSize);
         visualisationEngine.displayVisualisation();
     }
 
+    /**
+     * Changes the number of tree levels shown by the viewport.
+     *
+     * <p>This method prompts the user for the number of levels, enables paging with it and displays
+     * the updated visualisation. Subtrees below the last level are collapsed.</p>
+     */
+    private void setLevels() {
+        out.print("Enter the number of tree levels to show: ");
+        int depth = readInt();
+        scanner.nextLine();
+
+        if (depth < 1) {
+            out.println("The number of levels must be at least 1.");
+            return;
+        }
+        visualisationEngine.setDepth(depth);
+        visualisationEngine.displayVisualisation();
+    }
+
+    /**
+     * Displays how effective the render cache has been.
+     *
+     * <p>This method prints the number of displays served from the cache, the number that had to be
+     * rendered again, the resulting hit rate and the number of cached representations.</p>
+     */
+    private void displayCacheStatistics() {
+        RenderCache renderCache = visualisationEngine.getRenderCache();
+        long hits = renderCache.getHits();
+        long total = hits + renderCache.getMisses();
+        double hitRate = total == 0 ? 0 : 100.0 * hits / total;
+
+        out.println("Render cache: " + hits + " hits, " + renderCache.getMisses() + " misses ("
+                + String.format("%.1f", hitRate) + "% hit rate), " + renderCache.size() + " entries cached.");
+    }
+
+    /**
+     * Describes the metrics of the engine. It is shared by the interactive and batch interfaces.
+     *
+     * @param metrics The metrics, or null if they are not enabled.
+     * @return The summary of the metrics, or how to enable them, ending with a line separator.
+     */
+    static String describeMetrics(Metrics metrics) {
+        if (metrics == null) {
+            return "Metrics are off. Start the program with --metrics to record them." + System.lineSeparator();
+        }
+        return metrics.getSummary();
+    }
+
+    /**
+     * Runs a workload described by the user against the selected data structure and reports the measurements.
+     *
+     * <p>The user chooses the weights of additions, removals and traversals, the distribution and number of
+     * keys, and the number of warm-up and measured operations. Nothing is printed while the workload runs. The
+     * results can also be appended to a CSV file, so runs against different data structures can be compared;
+     * the data structure, which the workload changed, is displayed afterwards.</p>
+     */
+    private void runBenchmark() {
+        out.print("Enter the weights of add, remove and traverse, for example 50 45 5: ");
+        int addWeight = readInt();
+        int removeWeight = readInt();
+        int traverseWeight = readInt();
+        scanner.nextLine();
+        out.print("Enter the key distribution (uniform, sequential or zipf): ");
+        String distribution = scanner.nextLine().trim();
+        out.print("Enter the number of distinct keys: ");
+        int keys = readInt();
+        out.print("Enter the number of operations to measure: ");
+        int operations = readInt();
+        out.print("Enter the number of warm-up operations: ");
+        int warmUp = readInt();
+        scanner.nextLine();
+        out.print("Enter a CSV file to append the results to, or nothing to skip: ");
+        String file = scanner.nextLine().trim();
+
+        Workload.Result result;
+        try {
+            result = visualisationEngine.runWorkload(new Workload(addWeight, removeWeight, traverseWeight,
+                    Workload.Distribution.parse(distribution), keys, operations, warmUp, Workload.DEFAULT_SEED));
+        } catch (IllegalArgumentException e) {
+            out.println(e.getMessage());
+            return;
+        }
+        out.print(result.getSummary());
+        if (!file.isEmpty()) {
+            try {
+                result.appendCsv(Paths.get(file));
+                out.println("Appended the results to " + file + ".");
+            } catch (IOException e) {
+                out.println("Could not write " + file + ": " + e.getMessage());
+            }
+        }
+        visualisationEngine.displayVisualisation();
+    }
+
+    /**
+     * Saves the selected data structure to a snapshot file named by the user.
+     *
+     * <p>This method reports the size of the file and how long saving took, or why it failed.</p>
+     */
+    private void saveSnapshot() {
+        out.print("Enter the file to save to: ");
+        String file = scanner.nextLine().trim();
+
+        DataStructure dataStructure = visualisationEngine.getDataStructure();
+        long startTime = System.nanoTime();
+        try {
+            long bytes = Snapshot.save(dataStructure, Paths.get(file));
+            out.println("Saved the " + dataStructure.getName() + " to " + file + " (" + bytes + " bytes) in "
+                    + (System.nanoTime() - startTime) / 1_000_000 + " ms.");
+        } catch (IOException | IllegalArgumentException e) {
+            out.println("Could not save the " + dataStructure.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds every integer in a text file named by the user to the selected data structure at once.
+     *
+     * <p>The values are added with {@link VisualisationEngine#bulkLoad(int[])}, so they are not reported one by
+     * one. The updated data structure is displayed afterwards.</p>
+     */
+    private void importValues() {
+        out.print("Enter the file to import: ");
+        String file = scanner.nextLine().trim();
+
+        DataStructure dataStructure = visualisationEngine.getDataStructure();
+        long startTime = System.nanoTime();
+        try {
+            int[] values = IntegerFile.read(Paths.get(file));
+            visualisationEngine.bulkLoad(values);
+            out.println("Imported " + values.length + " values from " + file + " into the "
+                    + dataStructure.getName() + " in " + (System.nanoTime() - startTime) / 1_000_000 + " ms.");
+        } catch (IOException | IllegalArgumentException e) {
+            out.println("Could not import " + file + ": " + e.getMessage());
+            return;
+        }
+        visualisationEngine.displayVisualisation();
+    }
+
+    /**
+     * Replaces the selected data structure with one loaded from a snapshot file named by the user.
+     *
+     * <p>The snapshot records the type of the data structure, so it does not need to be chosen first.
+     * The loaded data structure is displayed once it is in place.</p>
+     *
+     * @return True if the data structure was loaded.
+     */
+    private boolean loadSnapshot() {
+        out.print("Enter the file to load from: ");
+        String file = scanner.nextLine().trim();
+
+        long startTime = System.nanoTime();
+        DataStructure dataStructure;
+        try {
+            dataStructure = Snapshot.load(Paths.get(file));
+        } catch (IOException | IllegalArgumentException e) {
+            out.println("Could not load " + file + ": " + e.getMessage());
+            return false;
+        }
+        out.println("Loaded a " + dataStructure.getName() + " from " + file + " in "
+                + (System.nanoTime() - startTime) / 1_000_000 + " ms.");
+
+        visualisationEngine.setDataStructure(dataStructure);
+        visualisationEngine.displayVisualisation();
+        return true;
+    }
+
+    /**
+     * Undoes or redoes the last change to the selected data structure and displays the result.
+     *
+     * @param undoing True to undo, false to redo.
+     */
+    private void stepThroughHistory(boolean undoing) {
+        if (!(visualisationEngine.getDataStructure() instanceof Versioned)) {
+            out.println("Undo and redo are not available for a "
+                    + visualisationEngine.getDataStructure().getName() + ".");
+            return;
+        }
+
+        boolean moved = undoing ? visualisationEngine.undo() : visualisationEngine.redo();
+        if (!moved) {
+            out.println(undoing ? "Nothing to undo." : "Nothing to redo.");
+            return;
+        }
+        out.println("Now at version " + visualisationEngine.getCurrentVersion() + ".");
+        visualisationEngine.displayVisualisation();
+    }
+
+    /**
+     * Restores a version of the selected data structure chosen by the user and displays it.
+     */
+    private void goToVersion() {
+        if (!(visualisationEngine.getDataStructure() instanceof Versioned)) {
+            out.println("Versions are not kept for a " + visualisationEngine.getDataStructure().getName() + ".");
+            return;
+        }
+
+        out.print("Enter a version from " + visualisationEngine.getOldestVersion() + " to "
+                + visualisationEngine.getNewestVersion() + " (currently " + visualisationEngine.getCurrentVersion()
+                + "): ");
+        long version = readLong();
+        scanner.nextLine();
+
+        if (!visualisationEngine.goToVersion(version)) {
+            out.println("Version " + version + " is not available.");
+            return;
+        }
+        visualisationEngine.displayVisualisation();
+    }
+
+    /**
+     * Folds the journal into a new snapshot of the selected data structure.
+     *
+     * <p>This method reports how many journaled operations the snapshot replaced, or why compacting failed.</p>
+     */
+    private void compactJournal() {
+        Journal journal = visualisationEngine.getJournal();
+        if (journal == null) {
+            out.println("There is no journal to compact. Start the program with --journal <file>.");
+            return;
+        }
+
+        long operations = journal.getRecordCount();
+        try {
+            journal.compact();
+            out.println("Folded " + operations + " journaled operations into snapshot " + journal.getEpoch()
+                    + ".");
+        } catch (IOException e) {
+            out.println("Could not compact the journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Switches between printing a new copy of the data structure after every operation and
+     * redrawing it in place.
+     *
+     * <p>When repainting is turned off, this method reports how many characters the repainter sent
+     * to the terminal while it was enabled.</p>
+     */
+    private void toggleRepaint() {
+        TerminalRepainter repainter = visualisationEngine.getRepainter();
+        if (visualisationEngine.toggleRepaint()) {
+            visualisationEngine.displayVisualisation();
+        } else {
+            out.println("Repaint disabled after sending " + repainter.getCharactersWritten()
+                    + " characters to the terminal.");
+        }
+    }
+
+    /**
+     * Reads a whole number typed at a prompt, asking again until one is entered.
+     *
+     * <p>A word that is not a number is reported and the rest of its line discarded. Several numbers may be
+     * typed on one line, so whatever follows a number is left for the next read.</p>
+     *
+     * @return The number.
+     * @throws java.util.NoSuchElementException If the input ends, for example because the user disconnected.
+     */
+    private int readInt() {
+        while (!scanner.hasNextInt()) {
+            rejectNumber();
+        }
+        return scanner.nextInt();
+    }
+
+    /**
+     * Reads a whole number that may exceed the range of an int, asking again until one is entered.
+     *
+     * @return The number.
+     * @throws java.util.NoSuchElementException If the input ends, for example because the user disconnected.
+     */
+    private long readLong() {
+        while (!scanner.hasNextLong()) {
+            rejectNumber();
+        }
+        return scanner.nextLong();
+    }
+
+    private void rejectNumber() {
+        String rejected = scanner.next();
+        scanner.nextLine();
+        out.print("'" + rejected + "' is not a whole number. Please enter one: ");
+    }
+
     /**
      * Exits the Data Structure Visualiser program.
      *
@@ -255,7 +1059,10 @@ public class UserInterface {
      * that the program should terminate. It is called when the user decides to exit the program.</p>
      */
     private void exitProgram() {
-        System.out.println("Thanks for using Data Structure visualiser");
+        if (visualisationEngine.getRepainter() != null) {
+            visualisationEngine.toggleRepaint();
+        }
+        out.println("Thanks for using Data Structure visualiser");
         running = false;
     }
 }
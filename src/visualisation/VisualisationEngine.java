@@ -1,6 +1,22 @@
 package visualisation;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+
+import dataStructures.BinaryTree;
+import dataStructures.BreadthFirstLevels;
 import dataStructures.DataStructure;
+import dataStructures.DirectedGraph;
+import dataStructures.EventSink;
+import dataStructures.Journal;
+import dataStructures.Versioned;
+import dataStructures.Viewport;
 
 /**
  * The VisualisationEngine class manages the visualization of various data structures.
@@ -10,7 +26,29 @@ import dataStructures.DataStructure;
  * and traversing the data structure while updating the visualization during traversal.</p>
  */
 public class VisualisationEngine {
+    private static final int DEFAULT_PAGE_SIZE = 32;
+    private static final int DEFAULT_DEPTH = 5;
+    private static final int HISTORY_LIMIT = 1000;
+
     private DataStructure dataStructure;
+    private final Writer out;
+    private final boolean flushAfterDisplay;
+    private Viewport viewport = Viewport.FULL;
+    private Viewport pagedViewport = new Viewport(0, DEFAULT_PAGE_SIZE, DEFAULT_DEPTH);
+    private final RenderCache renderCache = new RenderCache();
+    private TerminalRepainter repainter;
+    private EventSink eventSink;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private ForkJoinPool searchPool;
+    private Journal journal;
+    private Metrics metrics;
+
+    // The most recent versions of a versioned data structure, in a ring indexed by version number
+    private final Object[] versions = new Object[HISTORY_LIMIT];
+    private long oldestVersion;
+    private long currentVersion;
+    private long newestVersion;
+    private long recordedModificationCount;
 
     /**
      * Constructs a VisualisationEngine with the specified initial data structure.
@@ -18,7 +56,22 @@ public class VisualisationEngine {
      * @param initialDataStructure The initial data structure to be visualized.
      */
     public VisualisationEngine(DataStructure initialDataStructure) {
+        this(initialDataStructure, new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16), true);
+    }
+
+    /**
+     * Constructs a VisualisationEngine that writes to the specified output.
+     *
+     * @param initialDataStructure The initial data structure to be visualized.
+     * @param out The output the visualisation is written to.
+     * @param flushAfterDisplay Whether the output is flushed after every display. Batch runs turn this off
+     *                          and flush once at the end.
+     */
+    public VisualisationEngine(DataStructure initialDataStructure, Writer out, boolean flushAfterDisplay) {
         this.dataStructure = initialDataStructure;
+        this.out = out;
+        this.flushAfterDisplay = flushAfterDisplay;
+        resetHistory();
     }
 
     /**
@@ -28,6 +81,28 @@ public class VisualisationEngine {
      */
     public void setDataStructure(DataStructure newDataStructure) {
         this.dataStructure = newDataStructure;
+        renderCache.clear();
+        if (eventSink != null) {
+            newDataStructure.setEventSink(eventSink);
+        }
+        if (journal != null) {
+            try {
+                journal.start(newDataStructure);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (repainter != null) {
+            repainter.reset();
+        }
+        pagedViewport = pagedViewport.rewind();
+        if (viewport != Viewport.FULL) {
+            viewport = pagedViewport;
+        }
+        resetHistory();
+        if (metrics != null) {
+            metrics.sample(newDataStructure);
+        }
     }
 
     /**
@@ -39,28 +114,568 @@ public class VisualisationEngine {
         return dataStructure;
     }
 
+    /**
+     * Sets the sink that operations on the current data structure, and on every data structure set
+     * afterwards, are reported to.
+     *
+     * @param eventSink The event sink.
+     */
+    public void setEventSink(EventSink eventSink) {
+        this.eventSink = eventSink;
+        if (journal != null) {
+            // The journal stays in front of the data structure and forwards to the new sink
+            journal.setDelegate(eventSink);
+        } else {
+            dataStructure.setEventSink(eventSink);
+        }
+    }
+
+    /**
+     * Records every change to the current data structure, and to every data structure set afterwards, in a
+     * journal.
+     *
+     * <p>If the journal was recovered into the current data structure it carries on where it left off;
+     * otherwise it is started afresh from the current data structure.</p>
+     *
+     * @param journal The journal.
+     * @throws IOException If the journal cannot be started.
+     */
+    public void setJournal(Journal journal) throws IOException {
+        this.journal = journal;
+        if (journal.getDataStructure() != dataStructure) {
+            journal.start(dataStructure);
+        }
+    }
+
+    /**
+     * Gets the journal changes are recorded in.
+     *
+     * @return The journal, or null if changes are not journaled.
+     */
+    public Journal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Starts timing operations and sampling gauges. Until this is called nothing is measured, so metrics
+     * cost nothing.
+     *
+     * @return The metrics, which are kept for the rest of the session.
+     */
+    public Metrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new Metrics();
+            metrics.sample(dataStructure);
+        }
+        return metrics;
+    }
+
+    /**
+     * Gets the metrics of the engine.
+     *
+     * @return The metrics, or null if they were not enabled.
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Adds a value to the current data structure and records the change.
+     *
+     * @param value The value to add.
+     */
+    public void addNode(int value) {
+        if (metrics == null) {
+            dataStructure.addNode(value);
+        } else {
+            long startTime = System.nanoTime();
+            dataStructure.addNode(value);
+            metrics.record(Metrics.Timing.ADD, System.nanoTime() - startTime);
+        }
+        recordChange();
+    }
+
+    /**
+     * Removes a value from the current data structure and records the change.
+     *
+     * @param value The value to remove; stacks and queues ignore it and remove the element at their end.
+     */
+    public void removeNode(int value) {
+        if (metrics == null) {
+            dataStructure.removeNode(value);
+        } else {
+            long startTime = System.nanoTime();
+            dataStructure.removeNode(value);
+            metrics.record(Metrics.Timing.REMOVE, System.nanoTime() - startTime);
+        }
+        recordChange();
+    }
+
+    /**
+     * Adds many values to the current data structure at once and records the change as a single version.
+     *
+     * <p>The values are not reported one by one, so a journal is compacted afterwards, because the operations
+     * it holds no longer lead to the new contents.</p>
+     *
+     * @param values The values to add, in order.
+     */
+    public void bulkLoad(int[] values) {
+        dataStructure.bulkLoad(values);
+        recordChange();
+        if (journal != null) {
+            try {
+                journal.compact();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Runs a workload against the current data structure and records the change as a single version.
+     *
+     * <p>The workload runs with events switched off, so a journal is compacted afterwards, as after
+     * {@link #bulkLoad(int[])}.</p>
+     *
+     * @param workload The workload.
+     * @return The measurements.
+     */
+    public Workload.Result runWorkload(Workload workload) {
+        Workload.Result result = workload.run(dataStructure);
+        recordChange();
+        if (journal != null) {
+            try {
+                journal.compact();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Records the result of an operation on the current data structure. Interfaces call this after each
+     * operation that may have changed it.
+     *
+     * <p>If the data structure changed and is {@link Versioned}, its new contents become the next version
+     * and any versions that had been undone are discarded. The journal is then compacted if it has grown past
+     * its threshold.</p>
+     */
+    public void recordChange() {
+        if (dataStructure instanceof Versioned && dataStructure.getModificationCount() != recordedModificationCount) {
+            currentVersion++;
+            newestVersion = currentVersion;
+            if (newestVersion - oldestVersion >= HISTORY_LIMIT) {
+                oldestVersion++;
+            }
+            versions[slotOf(currentVersion)] = ((Versioned) dataStructure).captureVersion();
+            recordedModificationCount = dataStructure.getModificationCount();
+        }
+
+        if (journal != null) {
+            try {
+                journal.compactIfNeeded();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (metrics != null) {
+            metrics.sample(dataStructure);
+        }
+    }
+
+    /**
+     * Goes back to the version before the current one.
+     *
+     * @return False if there is no earlier version.
+     */
+    public boolean undo() {
+        return goToVersion(currentVersion - 1);
+    }
+
+    /**
+     * Goes forward to the version that was last undone.
+     *
+     * @return False if no version has been undone since the last change.
+     */
+    public boolean redo() {
+        return goToVersion(currentVersion + 1);
+    }
+
+    /**
+     * Restores a version of the current data structure in O(1), without replaying any operations.
+     *
+     * <p>Version 0 is the data structure as it was set, and each recorded change adds one. Only the last
+     * {@value #HISTORY_LIMIT} versions are kept. The operations in a journal no longer lead to the restored
+     * contents, so the journal is marked stale rather than compacted here: stepping through versions writes
+     * nothing, and the journal takes one snapshot when the next change is recorded or it is closed.</p>
+     *
+     * @param version The number of the version.
+     * @return False if the data structure is not versioned or the version is not kept.
+     */
+    public boolean goToVersion(long version) {
+        if (!(dataStructure instanceof Versioned) || version < oldestVersion || version > newestVersion) {
+            return false;
+        }
+
+        ((Versioned) dataStructure).restoreVersion(versions[slotOf(version)]);
+        currentVersion = version;
+        recordedModificationCount = dataStructure.getModificationCount();
+        if (metrics != null) {
+            metrics.sample(dataStructure);
+        }
+        if (journal != null) {
+            journal.markStale();
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of the version the current data structure is at.
+     *
+     * @return The version number.
+     */
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+
+    /**
+     * Gets the number of the oldest version that can still be restored.
+     *
+     * @return The version number.
+     */
+    public long getOldestVersion() {
+        return oldestVersion;
+    }
+
+    /**
+     * Gets the number of the newest version that can be restored.
+     *
+     * @return The version number.
+     */
+    public long getNewestVersion() {
+        return newestVersion;
+    }
+
+    private void resetHistory() {
+        Arrays.fill(versions, null);
+        oldestVersion = 0;
+        currentVersion = 0;
+        newestVersion = 0;
+        recordedModificationCount = dataStructure.getModificationCount();
+        if (dataStructure instanceof Versioned) {
+            versions[0] = ((Versioned) dataStructure).captureVersion();
+        }
+    }
+
+    private static int slotOf(long version) {
+        return (int) (version % HISTORY_LIMIT);
+    }
+
     /**
      * Displays the visual representation of the current data structure.
      *
-     * <p>This method retrieves the visual representation of the current data structure
-     * and prints it to the console with appropriate formatting.</p>
+     * <p>This method writes the part of the current data structure covered by the viewport into a
+     * buffered writer over the console, with appropriate formatting, and flushes it once the whole
+     * representation has been written, unless the engine was created for a batch run. The representation
+     * comes from the render cache, so it is only rebuilt when the data structure or the viewport has changed
+     * since it was last displayed.</p>
+     *
+     * <p>When repainting is enabled, the representation is redrawn in place at the top of the terminal
+     * and only the lines that changed since the previous display are sent.</p>
      */
     public void displayVisualisation() {
-        String visualRepresentation = dataStructure.getVisualRepresentation();
+        if (metrics == null) {
+            show(renderCache.render(dataStructure, viewport));
+            return;
+        }
 
-        System.out.println();
-        System.out.println(visualRepresentation);
-        System.out.println();
+        long startTime = System.nanoTime();
+        long misses = renderCache.getMisses();
+        String visualRepresentation = renderCache.render(dataStructure, viewport);
+        if (renderCache.getMisses() != misses) {
+            metrics.recordRender(System.nanoTime() - startTime, visualRepresentation.length());
+        }
+        show(visualRepresentation);
+        metrics.record(Metrics.Timing.DISPLAY, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Displays the current binary tree with the values in a range highlighted.
+     *
+     * <p>The representation covers the same viewport as {@link #displayVisualisation()} but bypasses the
+     * render cache, since the highlighting only applies to this one display.</p>
+     *
+     * @param low The smallest highlighted value.
+     * @param high The largest highlighted value; nothing is highlighted if it is less than {@code low}.
+     * @throws IllegalStateException If the current data structure is not a binary tree.
+     */
+    public void displayHighlighted(int low, int high) {
+        if (!(dataStructure instanceof BinaryTree)) {
+            throw new IllegalStateException("Only a binary tree can be displayed with highlighting.");
+        }
+        StringBuilder visualRepresentation = new StringBuilder();
+        try {
+            ((BinaryTree) dataStructure).writeVisualRepresentation(visualRepresentation, viewport, low, high);
+        } catch (IOException e) {
+            // StringBuilder never throws, but Appendable declares it
+            throw new UncheckedIOException(e);
+        }
+        show(visualRepresentation.toString());
+    }
+
+    private void show(String visualRepresentation) {
+        try {
+            if (repainter != null) {
+                repainter.repaint(visualRepresentation, out);
+            } else {
+                out.write(System.lineSeparator());
+                out.write(visualRepresentation);
+                out.write(System.lineSeparator());
+                out.write(System.lineSeparator());
+            }
+            if (flushAfterDisplay) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
      * Traverses the current data structure and updates the visualization during traversal.
      *
-     * <p>This method initiates the traversal of the current data structure, prints a message indicating
-     * the traversal process, and calls the traverse method on the data structure to update the visualization.</p>
+     * <p>This method walks the values of the current data structure lazily with its
+     * {@link DataStructure#iterator()} and writes them on one line, in the order the data structure defines.
+     * Only the values inside the viewport are written: the ones before it are skipped without being written,
+     * the walk stops at its end, and markers count what was left out. A directed graph is instead searched in
+     * parallel from its first vertex and shown level by level.</p>
      */
     public void traverseAndVisualize() {
-        System.out.println("Traversing the Data Structure:");
-        dataStructure.traverse();
+        long startTime = metrics == null ? 0 : System.nanoTime();
+        try {
+            out.write("Traversing the " + dataStructure.getName() + ":" + System.lineSeparator());
+            if (dataStructure instanceof DirectedGraph && ((DirectedGraph) dataStructure).getVertexCount() > 0) {
+                // Large graphs are searched level by level on every core instead of printing one long line
+                DirectedGraph graph = (DirectedGraph) dataStructure;
+                writeLevels(out, graph, graph.iterator().nextInt());
+            } else {
+                writeValues(dataStructure.iterator());
+            }
+            if (flushAfterDisplay) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (metrics != null) {
+            metrics.record(Metrics.Timing.TRAVERSE, System.nanoTime() - startTime);
+        }
+    }
+
+    private void writeValues(PrimitiveIterator.OfInt values) throws IOException {
+        int offset = viewport.getOffset();
+        int end = viewport.getEnd();
+        int index = 0;
+        for (; index < offset && values.hasNext(); index++) {
+            values.nextInt();
+        }
+        if (index > 0) {
+            out.write("... (" + index + " values before) ");
+        }
+        for (; index < end && values.hasNext(); index++) {
+            out.write(Integer.toString(values.nextInt()));
+            out.write(' ');
+        }
+        if (values.hasNext()) {
+            out.write("... (more values after)");
+        }
+        out.write(System.lineSeparator());
+    }
+
+    /**
+     * Searches the current directed graph breadth-first from a vertex and displays the vertices level by level.
+     *
+     * <p>The search runs on the configured number of threads, see {@link #setParallelism(int)}. The viewport
+     * selects which levels are shown and how many vertices of each, and a summary line reports how many
+     * vertices were reached and how long the search took.</p>
+     *
+     * @param start The value of the vertex to start from.
+     * @return The result of the search, or null if the vertex is not in the graph.
+     * @throws IllegalStateException If the current data structure is not a directed graph.
+     */
+    public BreadthFirstLevels displayLevels(int start) {
+        if (!(dataStructure instanceof DirectedGraph)) {
+            throw new IllegalStateException("Only a directed graph can be searched level by level.");
+        }
+        DirectedGraph graph = (DirectedGraph) dataStructure;
+        BreadthFirstLevels levels = null;
+        try {
+            if (graph.containsVertex(start)) {
+                levels = writeLevels(out, graph, start);
+            } else {
+                out.write("Vertex with value " + start + " not found in the directed graph." + System.lineSeparator());
+            }
+            if (flushAfterDisplay) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return levels;
+    }
+
+    private BreadthFirstLevels writeLevels(Appendable destination, DirectedGraph graph, int start) {
+        long startTime = System.nanoTime();
+        BreadthFirstLevels levels = graph.breadthFirstLevels(start, getSearchPool());
+        long elapsedMicros = (System.nanoTime() - startTime) / 1000;
+
+        try {
+            levels.writeLevels(destination, viewport);
+            destination.append("Reached " + levels.getVertexCount() + " of " + graph.getVertexCount()
+                    + " vertices from " + start + " in " + levels.getLevelCount() + " levels using "
+                    + levels.getParallelism() + (levels.getParallelism() == 1 ? " thread" : " threads")
+                    + " (" + elapsedMicros / 1000 + "." + String.format("%03d", elapsedMicros % 1000) + " ms)."
+                    + System.lineSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return levels;
+    }
+
+    /**
+     * Sets how many threads searches of directed graphs run on.
+     *
+     * @param parallelism The number of threads, where 1 searches on the calling thread.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1.");
+        }
+        if (searchPool != null && parallelism != this.parallelism) {
+            searchPool.shutdown();
+            searchPool = null;
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Gets how many threads searches of directed graphs run on.
+     *
+     * @return The number of threads, which defaults to the number of available processors.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Gets the pool searches run in, creating it on first use.
+     *
+     * @return The pool, or null if searches run on the calling thread.
+     */
+    private ForkJoinPool getSearchPool() {
+        if (parallelism == 1) {
+            return null;
+        }
+        if (searchPool == null) {
+            searchPool = new ForkJoinPool(parallelism);
+        }
+        return searchPool;
+    }
+
+    /**
+     * Gets the cache of rendered visual representations.
+     *
+     * @return The render cache, which also reports its hit and miss counts.
+     */
+    public RenderCache getRenderCache() {
+        return renderCache;
+    }
+
+    /**
+     * Switches between printing a full copy of the data structure on every display and repainting
+     * it in place on an ANSI terminal.
+     *
+     * @return True if repainting is now enabled.
+     */
+    public boolean toggleRepaint() {
+        if (repainter == null) {
+            repainter = new TerminalRepainter();
+            return true;
+        }
+
+        try {
+            repainter.release(out);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        repainter = null;
+        return false;
+    }
+
+    /**
+     * Gets the repainter used when repainting is enabled.
+     *
+     * @return The terminal repainter, or null if repainting is disabled.
+     */
+    public TerminalRepainter getRepainter() {
+        return repainter;
+    }
+
+    /**
+     * Gets the viewport used when displaying the data structure.
+     *
+     * @return The current viewport, which is {@link Viewport#FULL} unless paging is enabled.
+     */
+    public Viewport getViewport() {
+        return viewport;
+    }
+
+    /**
+     * Switches between rendering the whole data structure and rendering one page at a time.
+     *
+     * @return True if paging is now enabled.
+     */
+    public boolean toggleViewport() {
+        viewport = viewport == Viewport.FULL ? pagedViewport : Viewport.FULL;
+        return viewport != Viewport.FULL;
+    }
+
+    /**
+     * Moves the viewport to the next page, enabling paging if it was off.
+     */
+    public void nextPage() {
+        setPagedViewport(viewport == Viewport.FULL ? pagedViewport : pagedViewport.next());
+    }
+
+    /**
+     * Moves the viewport to the previous page, enabling paging if it was off.
+     */
+    public void previousPage() {
+        setPagedViewport(viewport == Viewport.FULL ? pagedViewport : pagedViewport.previous());
+    }
+
+    /**
+     * Sets how many elements, or tree rows, each page shows and enables paging.
+     *
+     * @param pageSize The number of elements or rows per page.
+     */
+    public void setPageSize(int pageSize) {
+        setPagedViewport(pagedViewport.withSize(pageSize));
+    }
+
+    /**
+     * Sets how many tree levels each page shows and enables paging.
+     *
+     * @param depth The number of tree levels to show.
+     */
+    public void setDepth(int depth) {
+        setPagedViewport(pagedViewport.withDepth(depth));
+    }
+
+    private void setPagedViewport(Viewport newViewport) {
+        pagedViewport = newViewport;
+        viewport = newViewport;
     }
 }
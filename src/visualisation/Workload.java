@@ -0,0 +1,427 @@
+package visualisation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.PrimitiveIterator;
+import java.util.SplittableRandom;
+
+import dataStructures.DataStructure;
+import dataStructures.EventSink;
+import dataStructures.NoOpEventSink;
+
+/**
+ * A synthetic mix of operations to measure the throughput of a data structure from inside the visualiser.
+ *
+ * <p>A workload adds, removes and traverses in proportion to three weights, drawing keys from a fixed range in
+ * one of three {@link Distribution distributions}. It first runs a number of warm-up operations, so the JIT
+ * compiles the code being measured, and then the measured operations, timing each one into a
+ * {@link LatencyHistogram} per kind of operation. Nothing is printed while it runs: events go to the
+ * {@link NoOpEventSink} and a traversal walks the values with {@link DataStructure#iterator()} instead of
+ * printing them.</p>
+ *
+ * <p>The memory the running thread allocates is read from the JVM before and after the measured operations,
+ * where the JVM supports it, so the result also shows how much garbage the data structure creates per
+ * operation.</p>
+ */
+public class Workload {
+    /**
+     * The seed the commands use, so that every data structure is measured with the same operations and keys.
+     */
+    public static final long DEFAULT_SEED = 42;
+
+    /**
+     * The columns of the CSV file results are appended to.
+     */
+    static final String CSV_HEADER = "data structure,add,remove,traverse,distribution,keys,operations,warm-up,seed,"
+            + "ops per sec,p50 us,p99 us,p99.9 us,max us,add p99 us,remove p99 us,traverse p99 us,"
+            + "allocated bytes per op,allocation MB per sec,final size";
+
+    /**
+     * How the keys of added and removed values are chosen.
+     */
+    public enum Distribution {
+        /**
+         * Every key in the range is equally likely.
+         */
+        UNIFORM,
+        /**
+         * Values are added in ascending order and removed in the order they were added, wrapping around at
+         * the end of the range.
+         */
+        SEQUENTIAL,
+        /**
+         * A few keys are far more likely than the rest: key k is chosen with a probability proportional to
+         * 1 / (k + 1) ^ 0.99, as in the YCSB benchmark.
+         */
+        ZIPF;
+
+        /**
+         * Gets a distribution by its name.
+         *
+         * @param name The name, in any case.
+         * @return The distribution.
+         * @throws IllegalArgumentException If there is no distribution by that name.
+         */
+        public static Distribution parse(String name) {
+            for (Distribution distribution : values()) {
+                if (distribution.name().equalsIgnoreCase(name)) {
+                    return distribution;
+                }
+            }
+            throw new IllegalArgumentException("Unknown key distribution '" + name
+                    + "'; expected uniform, sequential or zipf.");
+        }
+
+        /**
+         * Gets the name used by commands and in results.
+         *
+         * @return The lower-case name.
+         */
+        public String getLabel() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final double ZIPF_EXPONENT = 0.99;
+    private static final int ADD = 0;
+    private static final int REMOVE = 1;
+    private static final int TRAVERSE = 2;
+
+    private final int addWeight;
+    private final int removeWeight;
+    private final int traverseWeight;
+    private final Distribution distribution;
+    private final int keys;
+    private final int operations;
+    private final int warmUp;
+    private final long seed;
+
+    /**
+     * Constructs a Workload.
+     *
+     * @param addWeight The relative number of additions.
+     * @param removeWeight The relative number of removals.
+     * @param traverseWeight The relative number of traversals.
+     * @param distribution How keys are chosen.
+     * @param keys The number of distinct keys, from 0 up to but not including this number.
+     * @param operations The number of operations to measure.
+     * @param warmUp The number of operations to run before measuring.
+     * @param seed The seed of the random choices, so that a workload can be repeated exactly.
+     * @throws IllegalArgumentException If a weight or count is negative, the weights are all zero, there are no
+     *                                  keys or there are no operations to measure.
+     */
+    public Workload(int addWeight, int removeWeight, int traverseWeight, Distribution distribution, int keys,
+            int operations, int warmUp, long seed) {
+        if (addWeight < 0 || removeWeight < 0 || traverseWeight < 0 || addWeight + removeWeight + traverseWeight <= 0) {
+            throw new IllegalArgumentException("The weights must not be negative, and at least one must be positive.");
+        }
+        if (keys < 1 || operations < 1 || warmUp < 0) {
+            throw new IllegalArgumentException("There must be at least one key and one operation to measure.");
+        }
+        this.addWeight = addWeight;
+        this.removeWeight = removeWeight;
+        this.traverseWeight = traverseWeight;
+        this.distribution = distribution;
+        this.keys = keys;
+        this.operations = operations;
+        this.warmUp = warmUp;
+        this.seed = seed;
+    }
+
+    /**
+     * Runs the workload against a data structure, changing it.
+     *
+     * <p>The event sink of the data structure is switched off while the workload runs and restored afterwards,
+     * so anything that listens to it, such as a journal, misses the changes.</p>
+     *
+     * @param dataStructure The data structure.
+     * @return The measurements.
+     */
+    public Result run(DataStructure dataStructure) {
+        EventSink eventSink = dataStructure.getEventSink();
+        dataStructure.setEventSink(NoOpEventSink.INSTANCE);
+        try {
+            KeyGenerator generator = new KeyGenerator(new SplittableRandom(seed));
+            LatencyHistogram[] histograms = {new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram()};
+            LatencyHistogram all = new LatencyHistogram();
+            long checksum = 0;
+            for (int i = 0; i < warmUp; i++) {
+                checksum += perform(dataStructure, generator.nextOperation(), generator);
+            }
+
+            long allocatedBefore = allocatedBytes();
+            long startTime = System.nanoTime();
+            for (int i = 0; i < operations; i++) {
+                int operation = generator.nextOperation();
+                long operationStart = System.nanoTime();
+                checksum += perform(dataStructure, operation, generator);
+                long nanos = System.nanoTime() - operationStart;
+                histograms[operation].record(nanos);
+                all.record(nanos);
+            }
+            long elapsedNanos = System.nanoTime() - startTime;
+            long allocatedAfter = allocatedBytes();
+
+            long allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+            return new Result(this, dataStructure, elapsedNanos, all, histograms, allocated, checksum);
+        } finally {
+            dataStructure.setEventSink(eventSink);
+        }
+    }
+
+    /**
+     * Performs one operation.
+     *
+     * @return The sum of the values traversed, so the walk cannot be optimised away, or 0.
+     */
+    private static long perform(DataStructure dataStructure, int operation, KeyGenerator generator) {
+        switch (operation) {
+            case ADD:
+                dataStructure.addNode(generator.nextAddedKey());
+                return 0;
+            case REMOVE:
+                dataStructure.removeNode(generator.nextRemovedKey());
+                return 0;
+            default:
+                long sum = 0;
+                for (PrimitiveIterator.OfInt values = dataStructure.iterator(); values.hasNext(); ) {
+                    sum += values.nextInt();
+                }
+                return sum;
+        }
+    }
+
+    /**
+     * Gets the number of bytes the current thread has allocated so far.
+     *
+     * @return The number of bytes, or -1 if the JVM cannot tell.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Chooses operations and keys.
+     */
+    private final class KeyGenerator {
+        private final SplittableRandom random;
+        private final double zetaKeys;
+        private final double zipfEta;
+        private int nextAdded;
+        private int nextRemoved;
+
+        KeyGenerator(SplittableRandom random) {
+            this.random = random;
+            if (distribution == Distribution.ZIPF) {
+                // The constants of Gray et al., "Quickly generating billion-record synthetic databases"
+                zetaKeys = zeta(keys);
+                zipfEta = (1 - Math.pow(2.0 / keys, 1 - ZIPF_EXPONENT)) / (1 - zeta(2) / zetaKeys);
+            } else {
+                zetaKeys = 0;
+                zipfEta = 0;
+            }
+        }
+
+        int nextOperation() {
+            int choice = random.nextInt(addWeight + removeWeight + traverseWeight);
+            if (choice < addWeight) {
+                return ADD;
+            }
+            return choice < addWeight + removeWeight ? REMOVE : TRAVERSE;
+        }
+
+        int nextAddedKey() {
+            if (distribution == Distribution.SEQUENTIAL) {
+                int key = nextAdded;
+                nextAdded = nextAdded + 1 == keys ? 0 : nextAdded + 1;
+                return key;
+            }
+            return nextRandomKey();
+        }
+
+        int nextRemovedKey() {
+            if (distribution == Distribution.SEQUENTIAL) {
+                int key = nextRemoved;
+                nextRemoved = nextRemoved + 1 == keys ? 0 : nextRemoved + 1;
+                return key;
+            }
+            return nextRandomKey();
+        }
+
+        private int nextRandomKey() {
+            if (distribution == Distribution.UNIFORM) {
+                return random.nextInt(keys);
+            }
+            double u = random.nextDouble();
+            double uz = u * zetaKeys;
+            if (uz < 1) {
+                return 0;
+            }
+            if (uz < 1 + Math.pow(0.5, ZIPF_EXPONENT)) {
+                return Math.min(1, keys - 1);
+            }
+            int key = (int) (keys * Math.pow(zipfEta * u - zipfEta + 1, 1 / (1 - ZIPF_EXPONENT)));
+            return Math.min(key, keys - 1);
+        }
+
+        private double zeta(int n) {
+            double sum = 0;
+            for (int i = 1; i <= n; i++) {
+                sum += 1 / Math.pow(i, ZIPF_EXPONENT);
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * The measurements of one run of a workload.
+     */
+    public static final class Result {
+        private final Workload workload;
+        private final String dataStructure;
+        private final int finalSize;
+        private final long elapsedNanos;
+        private final LatencyHistogram all;
+        private final LatencyHistogram[] histograms;
+        private final long allocatedBytes;
+        private final long checksum;
+
+        private Result(Workload workload, DataStructure dataStructure, long elapsedNanos, LatencyHistogram all,
+                LatencyHistogram[] histograms, long allocatedBytes, long checksum) {
+            this.workload = workload;
+            this.dataStructure = dataStructure.getName();
+            this.finalSize = dataStructure.size();
+            this.elapsedNanos = elapsedNanos;
+            this.all = all;
+            this.histograms = histograms;
+            this.allocatedBytes = allocatedBytes;
+            this.checksum = checksum;
+        }
+
+        /**
+         * Gets the throughput of the measured operations.
+         *
+         * @return The number of operations per second.
+         */
+        public double getOperationsPerSecond() {
+            return workload.operations * 1e9 / Math.max(elapsedNanos, 1);
+        }
+
+        /**
+         * Gets the number of bytes allocated per measured operation.
+         *
+         * @return The mean number of bytes, or -1 if the JVM cannot tell.
+         */
+        public double getAllocatedBytesPerOperation() {
+            return allocatedBytes < 0 ? -1 : (double) allocatedBytes / workload.operations;
+        }
+
+        /**
+         * Gets the rate at which the measured operations allocated memory.
+         *
+         * @return The rate in megabytes per second, or -1 if the JVM cannot tell.
+         */
+        public double getAllocationMegabytesPerSecond() {
+            return allocatedBytes < 0 ? -1 : allocatedBytes * 1e9 / Math.max(elapsedNanos, 1) / (1 << 20);
+        }
+
+        /**
+         * Gets the sum of every value traversed, which only exists so that the JIT cannot skip the traversals.
+         *
+         * @return The sum.
+         */
+        public long getChecksum() {
+            return checksum;
+        }
+
+        /**
+         * Gets a summary of the run for people: the workload, the throughput, a line of latencies per kind of
+         * operation that ran, and the allocation rate.
+         *
+         * @return The summary, ending with a line separator.
+         */
+        public String getSummary() {
+            StringBuilder summary = new StringBuilder();
+            summary.append(String.format("Ran %d operations (%d:%d:%d add:remove:traverse, %s keys 0-%d, %d warm-up)"
+                    + " on the %s in %.1f ms: %.0f ops/sec.%n", workload.operations, workload.addWeight,
+                    workload.removeWeight, workload.traverseWeight, workload.distribution.getLabel(),
+                    workload.keys - 1, workload.warmUp, dataStructure, elapsedNanos / 1e6,
+                    getOperationsPerSecond()));
+            summary.append(String.format("%-10s %10s %10s %10s %10s %10s%n", "operation", "count", "p50 us", "p99 us",
+                    "p99.9 us", "max us"));
+            String[] labels = {"add", "remove", "traverse"};
+            for (int i = 0; i < histograms.length; i++) {
+                if (histograms[i].getCount() > 0) {
+                    appendLatencies(summary, labels[i], histograms[i]);
+                }
+            }
+            appendLatencies(summary, "all", all);
+            if (allocatedBytes < 0) {
+                summary.append("Allocation is not measured by this JVM.");
+            } else {
+                summary.append(String.format("Allocated %.1f bytes per operation, %.1f MB/sec.",
+                        getAllocatedBytesPerOperation(), getAllocationMegabytesPerSecond()));
+            }
+            summary.append(" The ").append(dataStructure).append(" now holds ").append(finalSize).append(" values.")
+                    .append(System.lineSeparator());
+            return summary.toString();
+        }
+
+        private static void appendLatencies(StringBuilder summary, String label, LatencyHistogram histogram) {
+            summary.append(String.format("%-10s %10d %10.2f %10.2f %10.2f %10.2f%n", label, histogram.getCount(),
+                    histogram.getPercentile(50) / 1000.0, histogram.getPercentile(99) / 1000.0,
+                    histogram.getPercentile(99.9) / 1000.0, histogram.getMax() / 1000.0));
+        }
+
+        /**
+         * Gets the run as a row of the CSV file described by {@link Workload#CSV_HEADER}.
+         *
+         * @return The row, without a line separator.
+         */
+        String toCsvRow() {
+            return String.format(Locale.ROOT, "%s,%d,%d,%d,%s,%d,%d,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,"
+                    + "%.1f,%.1f,%d", dataStructure, workload.addWeight, workload.removeWeight,
+                    workload.traverseWeight, workload.distribution.getLabel(), workload.keys, workload.operations,
+                    workload.warmUp, workload.seed, getOperationsPerSecond(), all.getPercentile(50) / 1000.0,
+                    all.getPercentile(99) / 1000.0, all.getPercentile(99.9) / 1000.0, all.getMax() / 1000.0,
+                    histograms[ADD].getPercentile(99) / 1000.0, histograms[REMOVE].getPercentile(99) / 1000.0,
+                    histograms[TRAVERSE].getPercentile(99) / 1000.0, getAllocatedBytesPerOperation(),
+                    getAllocationMegabytesPerSecond(), finalSize);
+        }
+
+        /**
+         * Appends the run to a CSV file, writing the header first if the file is new or empty, so that runs
+         * against different data structures line up for comparison.
+         *
+         * @param file The file.
+         * @throws IOException If the file cannot be written.
+         */
+        public void appendCsv(Path file) throws IOException {
+            boolean needsHeader = !Files.exists(file) || Files.size(file) == 0;
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND)) {
+                if (needsHeader) {
+                    writer.write(CSV_HEADER);
+                    writer.write(System.lineSeparator());
+                }
+                writer.write(toCsvRow());
+                writer.write(System.lineSeparator());
+            }
+        }
+    }
+}